@@ -1,43 +1,126 @@
 package com.github.davidrobbo.bounce.guice;
 
+import com.github.davidrobbo.bounce.metrics.BounceMetrics;
+import com.github.davidrobbo.bounce.repository.CaffeineRegionFactory;
+import com.github.davidrobbo.bounce.repository.CountCache;
+import com.github.davidrobbo.bounce.repository.QueryPlans;
+import com.github.davidrobbo.bounce.repository.RepositoryExecutor;
+import com.github.davidrobbo.bounce.repository.RoutingDataSource;
+import com.github.davidrobbo.bounce.repository.SQLClientFactory;
+import com.github.davidrobbo.bounce.repository.TransactionTemplate;
 import com.google.inject.AbstractModule;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.ext.sql.SQLClient;
 import org.junit.Assert;
 
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.Persistence;
+import javax.sql.DataSource;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class BounceConfigModule extends AbstractModule {
 
+    private static final String PERSISTENCE_UNIT = "default";
+    private static final int DEFAULT_POOL_SIZE = 10;
+    private static final long DEFAULT_CACHE_SIZE = 10000;
+    private static final int DEFAULT_BATCH_SIZE = 50;
+    private static final long DEFAULT_COUNT_CACHE_TTL = 60000;
+    private static final int DEFAULT_PLAN_CACHE_SIZE = 2048;
+    private static final long DEFAULT_REPLICA_MAX_LAG = 10;
+    private static final long DEFAULT_REPLICA_CHECK_INTERVAL = 5000;
+
     private Vertx vertx;
     private Boolean enableHibernate;
+    private SQLClientFactory sqlClientFactory;
 
     public BounceConfigModule() {
     }
 
     public BounceConfigModule(final Vertx vertx, final Boolean enableHibernate) {
+        this(vertx, enableHibernate, null);
+    }
+
+    /**
+     * @param sqlClientFactory creates the SQLClient of AsyncRepositories from datasource.async, none bound when null
+     */
+    public BounceConfigModule(final Vertx vertx, final Boolean enableHibernate,
+                              final SQLClientFactory sqlClientFactory) {
         this.vertx = vertx;
         this.enableHibernate = enableHibernate;
+        this.sqlClientFactory = sqlClientFactory;
     }
 
     @Override
     protected void configure() {
 
+        final BounceMetrics metrics = new BounceMetrics();
+        bind(BounceMetrics.class).toInstance(metrics);
         if (Boolean.TRUE.equals(enableHibernate)) {
+            final HikariDataSource primary = getDataSource(metrics);
+            final DataSource dataSource;
+            if (vertx.getOrCreateContext().config().containsKey("datasource.replicas")) {
+                final RoutingDataSource routing = getRoutingDataSource(primary, metrics);
+                bind(RoutingDataSource.class).toInstance(routing);
+                dataSource = routing;
+            } else {
+                dataSource = primary;
+            }
             final EntityManagerFactory emf = Persistence
-                    .createEntityManagerFactory("default", getHibernateProperties());
+                    .createEntityManagerFactory(PERSISTENCE_UNIT, getHibernateProperties(dataSource));
+            final RepositoryExecutor repositoryExecutor = getRepositoryExecutor(primary.getMaximumPoolSize());
+            metrics.gauge("repository.in_flight", repositoryExecutor::getInFlight);
+            bind(DataSource.class).toInstance(dataSource);
+            bind(HikariDataSource.class).toInstance(primary);
             bind(EntityManagerFactory.class).toInstance(emf);
+            bind(RepositoryExecutor.class).toInstance(repositoryExecutor);
+            bind(TransactionTemplate.class).toInstance(new TransactionTemplate(emf, repositoryExecutor));
+            bind(CountCache.class).toInstance(getCountCache());
+            final QueryPlans queryPlans = new QueryPlans(emf, planCacheSize());
+            metrics.gauge("repository.query_plans.hits", queryPlans::getHits);
+            metrics.gauge("repository.query_plans.misses", queryPlans::getMisses);
+            metrics.gauge("repository.query_plans.size", queryPlans::getSize);
+            bind(QueryPlans.class).toInstance(queryPlans);
+        }
+        if (sqlClientFactory != null) {
+            final JsonObject config = vertx.getOrCreateContext().config();
+            bind(SQLClient.class).toInstance(sqlClientFactory.create(vertx,
+                    config.getJsonObject("datasource.async", new JsonObject())));
         }
         if (vertx != null) {
             bind(Vertx.class).toInstance(vertx);
         }
     }
 
-    private Map<String, Object> getHibernateProperties() {
-        final Map<String, Object> map = new HashMap<>();
+    private RepositoryExecutor getRepositoryExecutor(final int connectionPoolSize) {
+        final JsonObject config = vertx.getOrCreateContext().config();
+        return new RepositoryExecutor(vertx, "bounce-repository-" + PERSISTENCE_UNIT,
+                config.getInteger("datasource.worker_pool_size", connectionPoolSize),
+                config.getInteger("datasource.max_queue_depth", 0));
+    }
+
+    private int planCacheSize() {
+        return vertx.getOrCreateContext().config()
+                .getInteger("hibernate.query.plan_cache_max_size", DEFAULT_PLAN_CACHE_SIZE);
+    }
+
+    private CountCache getCountCache() {
+        final JsonObject config = vertx.getOrCreateContext().config();
+        return new CountCache(config.getLong("repository.count_cache_size", DEFAULT_CACHE_SIZE),
+                config.getLong("repository.count_cache_ttl", DEFAULT_COUNT_CACHE_TTL));
+    }
+
+    /**
+     * HikariCP pool replacing Hibernate's built in (non production) connection pool
+     */
+    private HikariDataSource getDataSource(final BounceMetrics metrics) {
         final JsonObject config = vertx.getOrCreateContext().config();
         Assert.assertTrue("Datasource config 'datasource.driver_class' required",
                 config.containsKey("datasource.driver_class"));
@@ -48,10 +131,75 @@ public class BounceConfigModule extends AbstractModule {
         Assert.assertTrue("Datasource config 'datasource.username' required",
                 config.containsKey("datasource.username"));
 
-        map.put("hibernate.connection.driver_class", config.getString("datasource.driver_class"));
-        map.put("hibernate.connection.password", config.getString("datasource.password"));
-        map.put("hibernate.connection.url", config.getString("datasource.url"));
-        map.put("hibernate.connection.username", config.getString("datasource.username"));
+        final HikariDataSource dataSource = new HikariDataSource(getHikariConfig(config, "bounce-" + PERSISTENCE_UNIT,
+                config.getString("datasource.url"), config.getString("datasource.username"),
+                config.getString("datasource.password")));
+        final HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        metrics.gauge("datasource.pool.active", pool::getActiveConnections);
+        metrics.gauge("datasource.pool.idle", pool::getIdleConnections);
+        metrics.gauge("datasource.pool.total", pool::getTotalConnections);
+        metrics.gauge("datasource.pool.pending", pool::getThreadsAwaitingConnection);
+        return dataSource;
+    }
+
+    /**
+     * Routes repository reads outside a transaction to the datasource.replicas pools, which share the primary's
+     * driver and pool settings and may override url, username and password
+     */
+    private RoutingDataSource getRoutingDataSource(final HikariDataSource primary, final BounceMetrics metrics) {
+        final JsonObject config = vertx.getOrCreateContext().config();
+        final JsonArray replicaConfigs = config.getJsonArray("datasource.replicas");
+        final List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaConfigs.size(); i++) {
+            final JsonObject replica = replicaConfigs.getJsonObject(i);
+            Assert.assertTrue("Datasource config 'datasource.replicas[" + i + "].url' required",
+                    replica.containsKey("url"));
+            replicas.add(new HikariDataSource(getHikariConfig(config, "bounce-" + PERSISTENCE_UNIT + "-replica-" + i,
+                    replica.getString("url"), replica.getString("username", config.getString("datasource.username")),
+                    replica.getString("password", config.getString("datasource.password")))));
+        }
+        final RoutingDataSource dataSource = new RoutingDataSource(primary, replicas,
+                config.getString("datasource.replica_lag_query"),
+                config.getLong("datasource.replica_max_lag", DEFAULT_REPLICA_MAX_LAG),
+                config.getLong("datasource.replica_check_interval", DEFAULT_REPLICA_CHECK_INTERVAL));
+        metrics.gauge("datasource.replicas.healthy", dataSource::getHealthyReplicas);
+        return dataSource;
+    }
+
+    private HikariConfig getHikariConfig(final JsonObject config, final String poolName, final String url,
+                                         final String username, final String password) {
+        final HikariConfig hikari = new HikariConfig();
+        hikari.setPoolName(poolName);
+        hikari.setDriverClassName(config.getString("datasource.driver_class"));
+        hikari.setJdbcUrl(url);
+        hikari.setUsername(username);
+        hikari.setPassword(password);
+        hikari.setMaximumPoolSize(config.getInteger("datasource.pool_size", DEFAULT_POOL_SIZE));
+        if (config.containsKey("datasource.min_idle")) {
+            hikari.setMinimumIdle(config.getInteger("datasource.min_idle"));
+        }
+        if (config.containsKey("datasource.connection_timeout")) {
+            hikari.setConnectionTimeout(config.getLong("datasource.connection_timeout"));
+        }
+        if (config.containsKey("datasource.leak_detection_threshold")) {
+            hikari.setLeakDetectionThreshold(config.getLong("datasource.leak_detection_threshold"));
+        }
+        if (config.containsKey("datasource.statement_cache_size")) {
+            // MySQL Connector/J client side prepared statement cache
+            hikari.addDataSourceProperty("cachePrepStmts", "true");
+            hikari.addDataSourceProperty("prepStmtCacheSize", config.getInteger("datasource.statement_cache_size"));
+            hikari.addDataSourceProperty("prepStmtCacheSqlLimit", 2048);
+        }
+        config.getJsonObject("datasource.properties", new JsonObject())
+                .forEach(property -> hikari.addDataSourceProperty(property.getKey(), property.getValue()));
+        return hikari;
+    }
+
+    private Map<String, Object> getHibernateProperties(final DataSource dataSource) {
+        final Map<String, Object> map = new HashMap<>();
+        final JsonObject config = vertx.getOrCreateContext().config();
+
+        map.put("hibernate.connection.datasource", dataSource);
         if (config.containsKey("hibernate.hbm2ddl.auto")) {
             map.put("hibernate.hbm2ddl.auto", config.getString("hibernate.hbm2ddl.auto"));
         }
@@ -61,6 +209,28 @@ public class BounceConfigModule extends AbstractModule {
         if (config.containsKey("hibernate.dialect")) {
             map.put("hibernate.dialect", config.getString("hibernate.dialect"));
         }
+        // group inserts and updates per table into JDBC batches, entities using IDENTITY ids are never batched
+        map.put("hibernate.jdbc.batch_size",
+                String.valueOf(config.getInteger("hibernate.jdbc.batch_size", DEFAULT_BATCH_SIZE)));
+        map.put("hibernate.order_inserts", "true");
+        map.put("hibernate.order_updates", "true");
+        map.put("hibernate.jdbc.batch_versioned_data", "true");
+        // bounded compiled query cache, IN lists padded to powers of two so they share plans
+        map.put("hibernate.query.plan_cache_max_size", String.valueOf(planCacheSize()));
+        map.put("hibernate.query.in_clause_parameter_padding",
+                String.valueOf(config.getBoolean("hibernate.query.in_clause_parameter_padding", true)));
+        if (config.getBoolean("hibernate.cache.enabled", false)) {
+            // entities opt in with @javax.persistence.Cacheable, Hibernate invalidates them and any cached query
+            // over their table on every write
+            map.put("hibernate.cache.use_second_level_cache", "true");
+            map.put("hibernate.cache.use_query_cache", "true");
+            map.put("hibernate.cache.region.factory_class", new CaffeineRegionFactory(
+                    config.getLong("hibernate.cache.max_size", DEFAULT_CACHE_SIZE),
+                    config.getLong("hibernate.cache.expire_after_write", 0L)));
+            map.put("hibernate.javax.cache.provider",
+                    "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider");
+            map.put("javax.persistence.sharedCache.mode", "ENABLE_SELECTIVE");
+        }
         return map;
     }
 }
\ No newline at end of file
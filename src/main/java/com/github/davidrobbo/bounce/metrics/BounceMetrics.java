@@ -0,0 +1,54 @@
+package com.github.davidrobbo.bounce.metrics;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Minimal in process metrics registry bound by BounceConfigModule. Counters and maxima are cheap to update from any
+ * thread; gauges are sampled when a snapshot is taken. Inject it into a controller to expose {@link #snapshot()}.
+ */
+public class BounceMetrics {
+
+    private final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAccumulator> maxima = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Supplier<Number>> gauges = new ConcurrentHashMap<>();
+
+    public void increment(final String name) {
+        add(name, 1);
+    }
+
+    public void add(final String name, final long value) {
+        counters.computeIfAbsent(name, key -> new LongAdder()).add(value);
+    }
+
+    public long count(final String name) {
+        final LongAdder counter = counters.get(name);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Keep the largest value recorded under the name
+     */
+    public void max(final String name, final long value) {
+        maxima.computeIfAbsent(name, key -> new LongAccumulator(Math::max, Long.MIN_VALUE)).accumulate(value);
+    }
+
+    public void gauge(final String name, final Supplier<Number> gauge) {
+        gauges.put(name, gauge);
+    }
+
+    public JsonObject snapshot() {
+        final Map<String, Object> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.sum()));
+        maxima.forEach((name, max) -> values.put(name, max.get()));
+        gauges.forEach((name, gauge) -> values.put(name, gauge.get()));
+        return new JsonObject(values);
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.davidrobbo.bounce.metrics;
+
+import io.vertx.core.Vertx;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how late a periodic timer fires on the event loop it was started from. A late timer means the loop was
+ * busy or blocked, so the delay is a direct measure of the latency every other request on that loop paid.
+ *
+ * Records {@code eventloop.max_lag_ms} once the timer has fired. Every delay of at least {@code thresholdMillis}
+ * increments {@code eventloop.blocked} and is added to {@code eventloop.blocked_ms}.
+ */
+public class EventLoopMonitor {
+
+    private final Vertx vertx;
+    private final BounceMetrics metrics;
+    private final long intervalMillis;
+    private final long thresholdMillis;
+    private long timer = -1;
+    private long expected;
+
+    public EventLoopMonitor(final Vertx vertx, final BounceMetrics metrics, final long intervalMillis,
+                            final long thresholdMillis) {
+        this.vertx = vertx;
+        this.metrics = metrics;
+        this.intervalMillis = intervalMillis;
+        this.thresholdMillis = thresholdMillis;
+    }
+
+    /**
+     * Start measuring the event loop of the calling context
+     */
+    public void start() {
+        expected = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        timer = vertx.setPeriodic(intervalMillis, id -> check());
+    }
+
+    public void stop() {
+        if (timer != -1) { vertx.cancelTimer(timer); }
+        timer = -1;
+    }
+
+    private void check() {
+        final long now = System.nanoTime();
+        final long lag = Math.max(0, TimeUnit.NANOSECONDS.toMillis(now - expected));
+        expected = now + TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        metrics.max("eventloop.max_lag_ms", lag);
+        if (lag >= thresholdMillis) {
+            metrics.increment("eventloop.blocked");
+            metrics.add("eventloop.blocked_ms", lag);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.davidrobbo.bounce.metrics;
+
+/**
+ * Per method repository counters recorded by BaseRepository under {@code repository.<Repository>.<method>.*}:
+ * calls, errors, queries (SQL statements sent), rows (entities returned) and time_us (call to completion).
+ *
+ * Taken as a snapshot, it reports what happened since, which makes it a test helper too:
+ * <pre>
+ * final RepositoryStats stats = RepositoryStats.of(metrics, FooRepository.class, "findAll");
+ * fooRepository.findAll(pageable).setHandler(done -> stats.assertQueries(2));
+ * </pre>
+ */
+public final class RepositoryStats {
+
+    private final BounceMetrics metrics;
+    private final String name;
+    private final long calls;
+    private final long errors;
+    private final long queries;
+    private final long rows;
+    private final long time;
+
+    private RepositoryStats(final BounceMetrics metrics, final String name) {
+        this.metrics = metrics;
+        this.name = name;
+        this.calls = metrics.count(name + ".calls");
+        this.errors = metrics.count(name + ".errors");
+        this.queries = metrics.count(name + ".queries");
+        this.rows = metrics.count(name + ".rows");
+        this.time = metrics.count(name + ".time_us");
+    }
+
+    public static String name(final Class<?> repository, final String method) {
+        return "repository." + repository.getSimpleName() + "." + method;
+    }
+
+    public static RepositoryStats of(final BounceMetrics metrics, final Class<?> repository, final String method) {
+        return new RepositoryStats(metrics, name(repository, method));
+    }
+
+    public long calls() {
+        return metrics.count(name + ".calls") - calls;
+    }
+
+    public long errors() {
+        return metrics.count(name + ".errors") - errors;
+    }
+
+    public long queries() {
+        return metrics.count(name + ".queries") - queries;
+    }
+
+    public long rows() {
+        return metrics.count(name + ".rows") - rows;
+    }
+
+    public long timeMicros() {
+        return metrics.count(name + ".time_us") - time;
+    }
+
+    /**
+     * @throws AssertionError if another number of SQL statements was sent since the snapshot
+     */
+    public void assertQueries(final long expected) {
+        final long queries = queries();
+        if (queries != expected) {
+            throw new AssertionError("SQL statements sent by " + name + ": " + queries + ", expected " + expected);
+        }
+    }
+
+    /**
+     * @throws AssertionError if more SQL statements were sent since the snapshot
+     */
+    public void assertMaxQueries(final long max) {
+        final long queries = queries();
+        if (queries > max) {
+            throw new AssertionError("SQL statements sent by " + name + ": " + queries + ", expected at most " + max);
+        }
+    }
+}
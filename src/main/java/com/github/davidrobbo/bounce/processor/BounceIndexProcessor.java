@@ -0,0 +1,94 @@
+package com.github.davidrobbo.bounce.processor;
+
+import com.github.davidrobbo.bounce.vertx.web.RouteInterceptor;
+import com.github.davidrobbo.bounce.vertx.web.annotations.RestController;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Writes every @RestController and RouteInterceptor found at compile time to {@value #INDEX}, one binary class name
+ * per line, so Bounce can skip classpath scanning at startup. The index is written even when empty, marking the
+ * output as indexed. Entries from a previous (incremental) compilation are kept as long as the class still exists.
+ */
+@SupportedAnnotationTypes("*")
+public class BounceIndexProcessor extends AbstractProcessor {
+
+    public static final String INDEX = "META-INF/bounce/index";
+
+    private final Set<String> components = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            write();
+        } else {
+            final TypeElement interceptor = processingEnv.getElementUtils()
+                    .getTypeElement(RouteInterceptor.class.getCanonicalName());
+            roundEnv.getRootElements().forEach(element -> collect(element, interceptor));
+        }
+        return false;
+    }
+
+    private void collect(final Element element, final TypeElement interceptor) {
+        if (!(element instanceof TypeElement)) { return; }
+        final TypeElement type = (TypeElement) element;
+        final Types types = processingEnv.getTypeUtils();
+        if (type.getAnnotation(RestController.class) != null ||
+                (type.getKind() == ElementKind.CLASS && interceptor != null &&
+                        types.isAssignable(types.erasure(type.asType()), types.erasure(interceptor.asType())))) {
+            components.add(processingEnv.getElementUtils().getBinaryName(type).toString());
+        }
+        type.getEnclosedElements().forEach(enclosed -> collect(enclosed, interceptor));
+    }
+
+    private void write() {
+        final Filer filer = processingEnv.getFiler();
+        final Elements elements = processingEnv.getElementUtils();
+        try {
+            final FileObject existing = filer.getResource(StandardLocation.CLASS_OUTPUT, "", INDEX);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(existing.openInputStream(),
+                    StandardCharsets.UTF_8))) {
+                reader.lines()
+                        .map(String::trim)
+                        .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                        .filter(line -> elements.getTypeElement(line.replace('$', '.')) != null)
+                        .forEach(components::add);
+            }
+        } catch (IOException e) {
+            // no previous index
+        }
+        try {
+            final FileObject index = filer.createResource(StandardLocation.CLASS_OUTPUT, "", INDEX);
+            try (Writer writer = index.openWriter()) {
+                for (final String component : components) { writer.write(component + "\n"); }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Unable to write " + INDEX + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.github.davidrobbo.bounce.repository;
+
+import com.github.davidrobbo.bounce.metrics.BounceMetrics;
+import com.github.davidrobbo.bounce.metrics.RepositoryStats;
+import com.github.davidrobbo.bounce.vertx.web.BounceHttpException;
+import com.github.davidrobbo.bounce.vertx.web.CountMode;
+import com.github.davidrobbo.bounce.vertx.web.Page;
+import com.github.davidrobbo.bounce.vertx.web.Pageable;
+import com.google.inject.Inject;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.sql.ResultSet;
+import io.vertx.ext.sql.SQLClient;
+import io.vertx.ext.sql.SQLConnection;
+
+import javax.persistence.NoResultException;
+import java.io.Serializable;
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Repository with the API of BaseRepository built on the non blocking SQLClient bound by EnableAsyncRepositories.
+ * Statements are sent from the calling event loop and complete on it, no worker thread or JDBC connection is held
+ * while the database works.
+ *
+ * There is no persistence context: the entity's basic columns are mapped from its JPA annotations (see
+ * {@link EntityMapping}), relations are neither loaded nor saved, and queries are SQL with positional ? parameters
+ * rather than JPQL. Pages are read by offset only; a cursor is rejected with a 400. Every count mode other than
+ * {@link CountMode#NONE} runs an exact COUNT.
+ *
+ * Calls are recorded like BaseRepository's, see {@link RepositoryStats}.
+ */
+@SuppressWarnings("all")
+public abstract class AsyncRepository<T, ID extends Serializable> {
+
+    @Inject private SQLClient sqlClient;
+    @Inject private BounceMetrics metrics;
+    private final Map<String, String> names = new ConcurrentHashMap<>();
+    private volatile EntityMapping<T> mapping;
+
+    public AsyncRepository() {}
+
+    public Future<List<T>> findAll() {
+        final EntityMapping<T> mapping = mapping();
+        return query("findAll", mapping.getSelect(), new JsonArray()).map(mapping::rows);
+    }
+
+    /**
+     * Rows of a SQL query, mapped by column label onto the entity
+     */
+    public Future<List<T>> findAll(final String sql, final JsonArray params) {
+        return query("findAll", sql, params).map(mapping()::rows);
+    }
+
+    /**
+     * Ordered by the requested sort keys then the id, read by offset. One row more than the page size is read to
+     * tell whether there is a next page, so {@link CountMode#NONE} pages send a single statement.
+     */
+    public Future<Page<T>> findAll(final Pageable pageable) {
+        return page("findAll", pageable, mapping().getSelect(), new JsonArray(),
+                "SELECT COUNT(*) FROM " + mapping().getTable());
+    }
+
+    /**
+     * Pages a SQL query. Its columns must be selected by their mapped names for the order to apply. A query with its
+     * own ORDER BY is only given the id as a final key, and a requested order is rejected with a 400.
+     */
+    public Future<Page<T>> findAll(final Pageable pageable, final String sql, final JsonArray params) {
+        return page("findAll", pageable, sql, params, "SELECT COUNT(*) FROM (" + sql + ") c");
+    }
+
+    public Future<T> findOne(final ID id) {
+        final EntityMapping<T> mapping = mapping();
+        return query("findOne", mapping.getSelect() + " WHERE " + mapping.getIdColumn() + " = ?",
+                new JsonArray().add(EntityMapping.param(id))).map(rows -> {
+            if (rows.isEmpty()) { throw new NoResultException("No entity found for id " + id); }
+            return mapping.row(rows.get(0));
+        });
+    }
+
+    /**
+     * Inserts the entity. When its id is null the key generated by the database, if any, is set on it.
+     */
+    public Future<T> save(final T t) {
+        final Future<T> future = Future.future();
+        final long start = System.nanoTime();
+        sqlClient.getConnection(connection -> {
+            if (connection.failed()) { complete("save", start, 0, map(connection, c -> t), future); return; }
+            insert(connection.result(), t, done -> {
+                connection.result().close();
+                complete("save", start, 1, map(done, v -> t), future);
+            });
+        });
+        return future;
+    }
+
+    /**
+     * Inserts the entities one after the other in a single transaction on one connection
+     */
+    public Future<List<T>> saveAll(final List<T> ts) {
+        final Future<List<T>> future = Future.future();
+        final long start = System.nanoTime();
+        sqlClient.getConnection(connection -> {
+            if (connection.failed()) { complete("saveAll", start, 0, map(connection, c -> ts), future); return; }
+            final SQLConnection sqlConnection = connection.result();
+            sqlConnection.setAutoCommit(false, begun -> {
+                if (begun.failed()) {
+                    sqlConnection.close();
+                    complete("saveAll", start, 0, map(begun, v -> ts), future);
+                    return;
+                }
+                insertAll(sqlConnection, ts, 0, inserted -> {
+                    final Future<Void> ended = Future.future();
+                    if (inserted.succeeded()) { sqlConnection.commit(ended); }
+                    else { sqlConnection.rollback(rolledBack -> ended.fail(inserted.cause())); }
+                    ended.setHandler(done -> {
+                        sqlConnection.close();
+                        complete("saveAll", start, ts == null ? 0 : ts.size(), map(done, v -> ts), future);
+                    });
+                });
+            });
+        });
+        return future;
+    }
+
+    public Future<Void> delete(final T t) {
+        final Future<Void> future = Future.future();
+        final long start = System.nanoTime();
+        final EntityMapping<T> mapping = mapping();
+        final Object id = mapping.getId(t);
+        sqlClient.updateWithParams("DELETE FROM " + mapping.getTable() + " WHERE " + mapping.getIdColumn() + " = ?",
+                new JsonArray().add(EntityMapping.param(id)), done -> complete("delete", start, 1,
+                        map(done, result -> {
+                            if (result.getUpdated() == 0) {
+                                throw new NoResultException("No entity found for id " + id);
+                            }
+                            return (Void) null;
+                        }), future));
+        return future;
+    }
+
+    private Future<Page<T>> page(final String method, final Pageable pageable, final String sql,
+                                 final JsonArray params, final String countSql) {
+        final Future<Page<T>> future = Future.future();
+        final long start = System.nanoTime();
+        final EntityMapping<T> mapping = mapping();
+        final String order;
+        try {
+            if (pageable.getCursor() != null) {
+                throw new BounceHttpException(400, "Request Parameter cursor is not supported");
+            }
+            order = orderBy(SortOrder.of(mapping, pageable.getOrder()), mapping, sql);
+        } catch (Exception e) { return Future.failedFuture(e); }
+        final JsonArray pageParams = params.copy()
+                .add(pageable.getSize() + 1)
+                .add(pageable.getPage() * pageable.getSize());
+        sqlClient.queryWithParams(sql + order + " LIMIT ? OFFSET ?", pageParams, rows -> {
+            if (rows.failed() || pageable.getCount() == CountMode.NONE) {
+                complete(method, start, 1, map(rows, resultSet -> page(pageable, mapping, resultSet, null)), future);
+                return;
+            }
+            sqlClient.queryWithParams(countSql, params, count -> complete(method, start, 2,
+                    map(count, resultSet -> page(pageable, mapping, rows.result(),
+                            ((Number) resultSet.getResults().get(0).getValue(0)).longValue())), future));
+        });
+        return future;
+    }
+
+    private Page<T> page(final Pageable pageable, final EntityMapping<T> mapping, final ResultSet rows,
+                         final Long total) {
+        final Page<T> page = new Page<>(pageable);
+        final List<T> content = mapping.rows(rows.getRows());
+        page.setHasNext(content.size() > pageable.getSize());
+        page.setContent(content.size() > pageable.getSize()
+                ? new ArrayList<>(content.subList(0, pageable.getSize())) : content);
+        page.setTotalElements(total);
+        return page;
+    }
+
+    /**
+     * The requested order followed by the id, so offsets are stable, or only the id appended to the query's own
+     * ORDER BY when it has one
+     */
+    private static String orderBy(final SortOrder sort, final EntityMapping<?> mapping, final String sql)
+            throws BounceHttpException {
+        if (CountQuery.ordered(sql)) {
+            if (!sort.getOrders().isEmpty()) {
+                throw new BounceHttpException(400, "Request Parameter order is not supported");
+            }
+            return ", " + mapping.getIdColumn() + " ASC";
+        }
+        final boolean byId = sort.getOrders().stream()
+                .anyMatch(order -> order.getPropertyName().equals(mapping.getIdProperty()));
+        if (byId) { return sort.getClause(); }
+        return (sort.getOrders().isEmpty() ? " ORDER BY " : sort.getClause() + ", ") + mapping.getIdColumn() + " ASC";
+    }
+
+    private Future<List<JsonObject>> query(final String method, final String sql,
+                                                             final JsonArray params) {
+        final Future<List<JsonObject>> future = Future.future();
+        final long start = System.nanoTime();
+        sqlClient.queryWithParams(sql, params, done -> complete(method, start, 1, map(done, ResultSet::getRows), future));
+        return future;
+    }
+
+    private void insert(final SQLConnection connection, final T t, final Handler<AsyncResult<Void>> handler) {
+        final EntityMapping<T> mapping = mapping();
+        final List<String> columns = mapping.columns(t);
+        final String sql = "INSERT INTO " + mapping.getTable() + " (" + String.join(", ", columns) + ") VALUES ("
+                + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+        final boolean generated = mapping.getId(t) == null;
+        connection.updateWithParams(sql, mapping.values(t), done -> {
+            if (done.succeeded() && generated && done.result().getKeys() != null
+                    && done.result().getKeys().size() > 0) {
+                try { mapping.setId(t, done.result().getKeys().getValue(0)); }
+                catch (Exception e) { handler.handle(Future.failedFuture(e)); return; }
+            }
+            handler.handle(map(done, result -> (Void) null));
+        });
+    }
+
+    private void insertAll(final SQLConnection connection, final List<T> ts, final int index,
+                           final Handler<AsyncResult<Void>> handler) {
+        if (ts == null || index == ts.size()) { handler.handle(Future.succeededFuture()); return; }
+        insert(connection, ts.get(index), done -> {
+            if (done.failed()) { handler.handle(done); }
+            else { insertAll(connection, ts, index + 1, handler); }
+        });
+    }
+
+    private <R> void complete(final String method, final long start, final long statements,
+                              final AsyncResult<R> done, final Future<R> future) {
+        final String name = names.computeIfAbsent(method, key -> RepositoryStats.name(getClass(), key));
+        metrics.increment(name + ".calls");
+        if (done.failed()) { metrics.increment(name + ".errors"); }
+        metrics.add(name + ".queries", statements);
+        metrics.add(name + ".rows", done.succeeded() ? rows(done.result()) : 0);
+        metrics.add(name + ".time_us", (System.nanoTime() - start) / 1000);
+        future.handle(done);
+    }
+
+    /**
+     * AsyncResult#map applies the mapper on every result() call, this applies it once
+     */
+    private static <A, R> AsyncResult<R> map(final AsyncResult<A> done, final Function<A, R> mapper) {
+        if (done.failed()) { return Future.failedFuture(done.cause()); }
+        try { return Future.succeededFuture(mapper.apply(done.result())); }
+        catch (Exception e) { return Future.failedFuture(e); }
+    }
+
+    private static long rows(final Object result) {
+        if (result instanceof Collection) { return ((Collection) result).size(); }
+        if (result instanceof Page) {
+            final List content = ((Page) result).getContent();
+            return content == null ? 0 : content.size();
+        }
+        return result == null ? 0 : 1;
+    }
+
+    private EntityMapping<T> mapping() {
+        if (mapping == null) { mapping = new EntityMapping<>(getGenericTypeClass()); }
+        return mapping;
+    }
+
+    private Class<T> getGenericTypeClass() {
+        try {
+            String className = ((ParameterizedType) getClass().getGenericSuperclass()).getActualTypeArguments()[0].getTypeName();
+            Class<?> clazz = Class.forName(className);
+            return (Class<T>) clazz;
+        } catch (Exception e) {
+            throw new IllegalStateException("Class is not parametrized with generic type!!! Please use extends <> ");
+        }
+    }
+}
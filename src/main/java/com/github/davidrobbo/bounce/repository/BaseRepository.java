@@ -1,79 +1,161 @@
 package com.github.davidrobbo.bounce.repository;
 
+import com.github.davidrobbo.bounce.metrics.BounceMetrics;
+import com.github.davidrobbo.bounce.metrics.RepositoryStats;
 import com.google.inject.Inject;
 import com.github.davidrobbo.bounce.vertx.web.util.EntityManagerHelper;
+import com.github.davidrobbo.bounce.vertx.web.BounceHttpException;
+import com.github.davidrobbo.bounce.vertx.web.CountMode;
 import com.github.davidrobbo.bounce.vertx.web.Page;
 import com.github.davidrobbo.bounce.vertx.web.Pageable;
+import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
-import io.vertx.core.Vertx;
+import io.vertx.core.streams.ReadStream;
 import org.hibernate.Criteria;
 import org.hibernate.Session;
-import org.hibernate.criterion.Order;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.cache.spi.TimestampsCache;
 import org.hibernate.criterion.Projections;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
 
 import javax.persistence.*;
+import javax.persistence.metamodel.EntityType;
 import java.io.Serializable;
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 
 @SuppressWarnings("all")
 public abstract class BaseRepository<T, ID extends Serializable> {
 
+    private static final int STREAM_BATCH_SIZE = 500;
+    private static final String UNNAMED = "other";
+
     @Inject private EntityManagerFactory entityManagerFactory;
-    @Inject private Vertx vertx;
+    @Inject private RepositoryExecutor repositoryExecutor;
+    @Inject private CountCache countCache;
+    @Inject private QueryPlans queryPlans;
+    @Inject private BounceMetrics metrics;
+    private final Map<String, String> names = new ConcurrentHashMap<>();
 
     public BaseRepository() {}
 
-    //@todo order and count are VERY HACKY!
+    /**
+     * Pages a JPQL query by offset, ordered by the requested sort keys then the id so offsets are stable. The query
+     * must alias the entity as t for the order to apply, see {@link SortOrder}; a query with its own ORDER BY is
+     * only given the id as a final key, and a requested order is rejected with a 400. The total is computed as
+     * {@link Pageable#getCount()} asks, ESTIMATED falls back to an exact count as no estimate is available for an
+     * arbitrary query. A cursor is rejected with a 400, as keyset paging needs the query's order, which only
+     * {@link #findAll(Pageable)} controls.
+     */
     public Future<Page<T>> findAll(final Pageable pageable, final String sql, final Map<String, Object> params) {
-        return noTransaction(handler -> {
+        if (pageable.getCursor() != null) {
+            return Future.failedFuture(new BounceHttpException(400, "Request Parameter cursor is not supported"));
+        }
+        return noTransaction("findAll", handler -> {
             try {
                 final Page<T> page = new Page<>(pageable);
-                final Query query = handler.getEntityManager().createQuery(sql + pageable.toSqlOrder());
+                final EntityType<T> entityType = handler.getEntityManager().getMetamodel().entity(getGenericTypeClass());
+                final SortOrder sort = SortOrder.of(entityType, pageable.getOrder());
+                final Query query = createQuery(handler.getEntityManager(), sql + orderBy(sort, entityType, sql));
                 params.forEach(query::setParameter);
                 query.setFirstResult(pageable.getSize() * pageable.getPage());
-                query.setMaxResults(pageable.getSize());
-                page.setContent(query.getResultList());
-                final Query countQuery = handler.getEntityManager().createQuery(countSql(sql));
-                params.forEach(countQuery::setParameter);
-                page.setTotalElements((Long)((Object[])countQuery.getSingleResult())[0]);
+                query.setMaxResults(pageable.getSize() + 1);
+                window(page, query.getResultList(), pageable.getSize());
+                page.setTotalElements(count(pageable, sql + new TreeMap<>(params), () -> null, () -> {
+                    final Query countQuery = createQuery(handler.getEntityManager(), queryPlans.count(sql));
+                    params.forEach(countQuery::setParameter);
+                    return ((Number) countQuery.getSingleResult()).longValue();
+                }));
                 handler.getFuture().complete(page);
             } catch (Exception e) { handler.getFuture().fail(e); }
         });
     }
 
     public Future<List<T>> findAll(final String sql, final Map<String, Object> params) {
-        return noTransaction(handler -> {
+        return noTransaction("findAll", handler -> {
+            try {
+                final Query query = createQuery(handler.getEntityManager(), sql);
+                params.forEach(query::setParameter);
+                handler.getFuture().complete(query.getResultList());
+            } catch (Exception e) { handler.getFuture().fail(e); }
+        });
+    }
+
+    /**
+     * Runs a query registered with {@link #registerQuery(String, String)} or declared with @NamedQuery
+     */
+    public Future<List<T>> findAllNamed(final String name, final Map<String, Object> params) {
+        return noTransaction("findAllNamed", handler -> {
             try {
-                final Query query = handler.getEntityManager().createQuery(sql);
+                final Query query = handler.getEntityManager().createNamedQuery(name);
+                queryPlans.record(queryPlans.jpql(name));
                 params.forEach(query::setParameter);
                 handler.getFuture().complete(query.getResultList());
             } catch (Exception e) { handler.getFuture().fail(e); }
         });
     }
 
+    /**
+     * Pages a named query, see {@link #findAll(Pageable, String, Map)}
+     */
+    public Future<Page<T>> findAllNamed(final Pageable pageable, final String name, final Map<String, Object> params) {
+        final String sql;
+        try { sql = queryPlans.jpql(name); }
+        catch (Exception e) { return Future.failedFuture(e); }
+        return findAll(pageable, sql, params);
+    }
+
+    /**
+     * Ordered by the requested sort keys then the id. Without a cursor the page is read by offset; with one, the rows
+     * after it are read by keyset, see {@link Keyset}, so any page costs the same as the first. The returned page
+     * carries the cursor for the next one either way.
+     *
+     * One row more than the page size is read to tell whether there is a next page, so {@link CountMode#NONE} pages
+     * run a single query. Every query runs in the same repository task.
+     */
     public Future<Page<T>> findAll(final Pageable pageable) {
-        return noTransaction(handler -> {
+        return noTransaction("findAll", handler -> {
             try {
                 final Page<T> page = new Page(pageable);
                 final Class genericType = getGenericTypeClass();
                 final Session session = (Session) handler.getEntityManager().getDelegate();
                 final Criteria criteria = session.createCriteria(genericType);
-                criteria.setFirstResult(pageable.getPage() * pageable.getSize());
-                criteria.setMaxResults(pageable.getSize());
-                final Order order = pageable.toCriteriaOrder();
-                if (order != null) { criteria.addOrder(order); }
-                final List<T> pageContent = criteria.list();
-                page.setContent(criteria.list());
-                final Criteria criteriaCount = session.createCriteria(genericType);
-                criteriaCount.setProjection(Projections.rowCount());
-                page.setTotalElements((Long) criteriaCount.uniqueResult());
+                final EntityType entityType = handler.getEntityManager().getMetamodel().entity(genericType);
+                final Keyset keyset = Keyset.of(entityType, SortOrder.of(entityType, pageable.getOrder()).getOrders());
+                keyset.getOrders().forEach(criteria::addOrder);
+                if (pageable.getCursor() != null) { criteria.add(keyset.after(pageable.getCursor())); }
+                else { criteria.setFirstResult(pageable.getPage() * pageable.getSize()); }
+                criteria.setMaxResults(pageable.getSize() + 1);
+                criteria.setCacheable(cacheable());
+                window(page, criteria.list(), pageable.getSize());
+                if (page.getHasNext()) {
+                    page.setNextCursor(keyset.cursor(page.getContent().get(page.getContent().size() - 1)));
+                }
+                page.setTotalElements(count(pageable, genericType.getName(),
+                        () -> estimate(handler.getEntityManager(), genericType), () -> {
+                    final Criteria criteriaCount = session.createCriteria(genericType);
+                    criteriaCount.setProjection(Projections.rowCount());
+                    criteriaCount.setCacheable(cacheable());
+                    return (Long) criteriaCount.uniqueResult();
+                }));
                 handler.getFuture().complete(page);
             } catch (Exception e) {
                 handler.getFuture().fail(e);
@@ -82,30 +164,52 @@ public abstract class BaseRepository<T, ID extends Serializable> {
     }
 
     public Future<List<T>> findAll() {
-        return noTransaction(handler -> {
+        return noTransaction("findAll", handler -> {
             try {
                 handler.getFuture().complete(handler.getEntityManager().createQuery("SELECT t FROM " +
-                        table() + " t").getResultList());
+                        table() + " t").setHint(QueryHints.CACHEABLE, cacheable()).getResultList());
             } catch (Exception e) {
                 handler.getFuture().fail(e);
             }
         });
     }
 
+    /**
+     * Stream every entity with constant memory, from a read replica when configured, see {@link RepositoryReadStream}
+     */
+    public ReadStream<T> stream() {
+        return new RepositoryReadStream<>(repositoryExecutor, entityManagerFactory::createEntityManager,
+                entityManager -> entityManager.createQuery("SELECT t FROM " + tableUnchecked() + " t"),
+                STREAM_BATCH_SIZE);
+    }
+
+    /**
+     * Stream the results of a query with constant memory, see {@link RepositoryReadStream}
+     */
+    public ReadStream<T> stream(final String sql, final Map<String, Object> params) {
+        return new RepositoryReadStream<>(repositoryExecutor, entityManagerFactory::createEntityManager, entityManager -> {
+            final Query query = entityManager.createQuery(sql);
+            params.forEach(query::setParameter);
+            return query;
+        }, STREAM_BATCH_SIZE);
+    }
+
+    /**
+     * Looks the entity up through the persistence context, so @Cacheable entities are served from the second level
+     * cache when it is enabled
+     */
     public Future<T> findOne(final ID id) {
-        return noTransaction(handler -> {
+        return noTransaction("findOne", handler -> {
             try {
-                handler.getFuture().complete(
-                        handler.getEntityManager().createQuery("SELECT t FROM " + table() + " t WHERE id = :id")
-                            .setParameter("id", id)
-                            .getSingleResult()
-                );
+                final T found = handler.getEntityManager().find(getGenericTypeClass(), id);
+                if (found == null) { throw new NoResultException("No entity found for id " + id); }
+                handler.getFuture().complete(found);
             } catch (Exception e) { handler.getFuture().fail(e); }
         });
     }
 
     public Future<T> findOne(final T t) {
-        return noTransaction(handler -> {
+        return noTransaction("findOne", handler -> {
             try { handler.getFuture().complete(handler.getEntityManager().find(t.getClass(), getId(t))); }
             catch (Exception e) { handler.getFuture().fail(e); }
         });
@@ -113,7 +217,7 @@ public abstract class BaseRepository<T, ID extends Serializable> {
 
     public Future<Void> delete(final T t) {
 
-        return performTransaction(handler -> {
+        return performTransaction("delete", handler -> {
             try {
                 final T found = (T) handler.getEntityManager().find(t.getClass(), getId(t));
                 handler.getEntityManager().remove(found);
@@ -124,7 +228,7 @@ public abstract class BaseRepository<T, ID extends Serializable> {
 
     public Future<T> save(final T t) {
 
-        return performTransaction(handler -> {
+        return performTransaction("save", handler -> {
             try {
                 handler.getEntityManager().persist(t);
                 handler.getFuture().complete(t);
@@ -132,53 +236,174 @@ public abstract class BaseRepository<T, ID extends Serializable> {
         });
     }
 
+    /**
+     * Persists in JDBC batches of hibernate.jdbc.batch_size, flushing and clearing the persistence context after
+     * every batch so its size stays bounded. The returned entities are detached.
+     */
     public Future<List<T>> saveAll(final List<T> ts) {
 
-        return performTransaction(handler -> {
+        return performTransaction("saveAll", handler -> {
             try {
-                if (ts != null || ts.size() > 0) {
-                    for (T t : ts) { handler.getEntityManager().persist(t); }
+                if (ts != null) {
+                    final EntityManager entityManager = handler.getEntityManager();
+                    final int batchSize = batchSize();
+                    for (int i = 0; i < ts.size(); i++) {
+                        entityManager.persist(ts.get(i));
+                        if ((i + 1) % batchSize == 0) {
+                            entityManager.flush();
+                            entityManager.clear();
+                        }
+                    }
                 }
                 handler.getFuture().complete(ts);
             } catch (Exception e) { handler.getFuture().fail(e); }
         });
     }
 
-    protected Future noTransaction(final Handler<EntityManagerHelper> actionHandler) {
+    /**
+     * Bulk insert through a StatelessSession in one transaction: no persistence context, cascades, lifecycle
+     * callbacks or second level cache, only batched inserts. Meant for ingesting large volumes of new rows. It never
+     * joins a {@link TransactionTemplate} unit. As the StatelessSession leaves the caches alone, cached queries over
+     * the entity's tables are invalidated and its cache region evicted once the rows are committed.
+     */
+    public Future<List<T>> insertAll(final List<T> ts) {
         final Future future = Future.future();
-        final EntityManager entityManager = entityManagerFactory.createEntityManager();
-        vertx.executeBlocking(f1 -> {
-            try { actionHandler.handle(new EntityManagerHelper(entityManager, f1)); }
-            catch (Exception e) { f1.fail(e); }
+        final long start = System.nanoTime();
+        repositoryExecutor.<List<T>>execute(f1 -> {
+            final SessionFactoryImplementor factory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+            final StatelessSession session = factory.openStatelessSession();
+            final TimestampsCache timestamps = factory.getCache().getTimestampsCache();
+            final Serializable[] spaces = factory.getMetamodel().entityPersister(getGenericTypeClass())
+                    .getQuerySpaces();
+            final Transaction transaction = session.beginTransaction();
+            try {
+                if (timestamps != null) { timestamps.preInvalidate(spaces, (SharedSessionContractImplementor) session); }
+                for (T t : ts) { session.insert(t); }
+                transaction.commit();
+                if (timestamps != null) { timestamps.invalidate(spaces, (SharedSessionContractImplementor) session); }
+                entityManagerFactory.getCache().evict(getGenericTypeClass());
+                f1.complete(ts);
+            } catch (Exception e) {
+                if (transaction.isActive()) { transaction.rollback(); }
+                f1.fail(e);
+            } finally { session.close(); }
         }, done -> {
-            if (done.succeeded()) { future.complete(done.result()); }
-            else { future.fail(done.cause()); }
-            entityManager.close();
+            // statements sent by a StatelessSession cannot be inspected
+            record("insertAll", start, null, done);
+            future.handle(done);
+        });
+        return future;
+    }
+
+    protected Future noTransaction(final Handler<EntityManagerHelper> actionHandler) {
+        return noTransaction(UNNAMED, actionHandler);
+    }
+
+    /**
+     * Runs outside a transaction; connections are taken from a read replica when datasource.replicas is configured,
+     * see {@link RoutingDataSource}. The EntityManager is opened and closed on the repository worker, so entities
+     * are detached by the time the future completes.
+     *
+     * @param method name the call is recorded under, see {@link RepositoryStats}
+     */
+    protected Future noTransaction(final String method, final Handler<EntityManagerHelper> actionHandler) {
+        final TransactionTemplate.Unit unit = TransactionTemplate.current();
+        if (unit != null) { return join(method, unit, actionHandler); }
+        final Future future = Future.future();
+        final long start = System.nanoTime();
+        final StatementCounter statements = new StatementCounter();
+        repositoryExecutor.execute(f1 -> RoutingDataSource.reading(() -> {
+            final EntityManager entityManager = TransactionTemplate.open(entityManagerFactory, statements);
+            final Future<Object> action = Future.future();
+            action.setHandler(done -> {
+                entityManager.close();
+                f1.handle(done);
+            });
+            try { actionHandler.handle(new EntityManagerHelper(entityManager, action)); }
+            catch (Exception e) { action.tryFail(e); }
+        }), done -> {
+            record(method, start, statements, done);
+            future.handle(done);
         });
         return future;
     }
 
     protected Future performTransaction(final Handler<EntityManagerHelper> actionHandler) {
+        return performTransaction(UNNAMED, actionHandler);
+    }
+
+    /**
+     * Begins, runs the action, then commits (or rolls back when it fails) and closes the EntityManager, all on the
+     * repository worker, so no JDBC round trip happens on the event loop. Inside a {@link TransactionTemplate} unit
+     * the action joins its transaction instead.
+     *
+     * @param method name the call is recorded under, see {@link RepositoryStats}
+     */
+    protected Future performTransaction(final String method, final Handler<EntityManagerHelper> actionHandler) {
+        final TransactionTemplate.Unit unit = TransactionTemplate.current();
+        if (unit != null) { return join(method, unit, actionHandler); }
         final Future future = Future.future();
-        final EntityManager entityManager = entityManagerFactory.createEntityManager();
-        vertx.executeBlocking(f1 -> {
+        final long start = System.nanoTime();
+        final StatementCounter statements = new StatementCounter();
+        repositoryExecutor.execute(f1 -> {
+            final EntityManager entityManager = TransactionTemplate.open(entityManagerFactory, statements);
+            final Future<Object> action = Future.future();
+            action.setHandler(done -> f1.handle(TransactionTemplate.end(entityManager, done)));
             try {
                 entityManager.getTransaction().begin();
-                actionHandler.handle(new EntityManagerHelper(entityManager, f1));
-            } catch (Exception e) { f1.fail(e); }
+                actionHandler.handle(new EntityManagerHelper(entityManager, action));
+            } catch (Exception e) { action.tryFail(e); }
         }, done -> {
-            if (done.succeeded()) {
-                entityManager.getTransaction().commit();
-                future.complete(done.result());
-            } else {
-                entityManager.getTransaction().rollback();
-                future.fail(done.cause());
-            }
-            entityManager.close();
+            record(method, start, statements, done);
+            future.handle(done);
         });
         return future;
     }
 
+    /**
+     * Runs the action on the calling thread with the unit's EntityManager, leaving the transaction to the unit
+     */
+    private Future join(final String method, final TransactionTemplate.Unit unit,
+                        final Handler<EntityManagerHelper> actionHandler) {
+        final Future future = Future.future();
+        final long start = System.nanoTime();
+        final int before = unit.getStatements().getCount();
+        final Future<Object> action = Future.future();
+        action.setHandler(done -> {
+            record(method, start, unit.getStatements().getCount() - before, done);
+            future.handle(done);
+        });
+        try { actionHandler.handle(new EntityManagerHelper(unit.getEntityManager(), action)); }
+        catch (Exception e) { action.tryFail(e); }
+        return future;
+    }
+
+    private void record(final String method, final long start, final StatementCounter statements,
+                        final AsyncResult<?> done) {
+        record(method, start, statements == null ? -1 : statements.getCount(), done);
+    }
+
+    /**
+     * @param statements SQL statements sent, negative when unknown
+     */
+    private void record(final String method, final long start, final long statements, final AsyncResult<?> done) {
+        final String name = names.computeIfAbsent(method, key -> RepositoryStats.name(getClass(), key));
+        metrics.increment(name + ".calls");
+        if (done.failed()) { metrics.increment(name + ".errors"); }
+        if (statements >= 0) { metrics.add(name + ".queries", statements); }
+        metrics.add(name + ".rows", done.succeeded() ? rows(done.result()) : 0);
+        metrics.add(name + ".time_us", (System.nanoTime() - start) / 1000);
+    }
+
+    private static long rows(final Object result) {
+        if (result instanceof Collection) { return ((Collection) result).size(); }
+        if (result instanceof Page) {
+            final List content = ((Page) result).getContent();
+            return content == null ? 0 : content.size();
+        }
+        return result == null ? 0 : 1;
+    }
+
     private ID getId(final T t) throws Exception {
         final Field field = idField(t.getClass());
         field.setAccessible(true);
@@ -202,11 +427,97 @@ public abstract class BaseRepository<T, ID extends Serializable> {
         }
     }
 
+    private int batchSize() {
+        final Object batchSize = entityManagerFactory.getProperties().get("hibernate.jdbc.batch_size");
+        return batchSize == null ? 1 : Math.max(1, Integer.parseInt(String.valueOf(batchSize)));
+    }
+
+    /**
+     * Queries over @Cacheable entities are cached too; ignored unless the query cache is enabled
+     */
+    private boolean cacheable() {
+        return getGenericTypeClass().isAnnotationPresent(Cacheable.class);
+    }
+
     private String table() throws Exception {
         return ((Table)getGenericTypeClass().getAnnotation(Table.class)).name();
     }
 
-    private String countSql(final String sql) {
-        return sql.substring(0, 7) + "COUNT(*), " + sql.substring(7);
+    private String tableUnchecked() {
+        try { return table(); }
+        catch (Exception e) { throw new IllegalStateException(e); }
+    }
+
+    /**
+     * Compile and register a named query for {@link #findAllNamed(String, Map)}, e.g. from an @Inject method of the
+     * repository. Names are shared by every repository of the persistence unit.
+     */
+    protected void registerQuery(final String name, final String jpql) {
+        queryPlans.register(name, jpql);
+    }
+
+    private Query createQuery(final EntityManager entityManager, final String jpql) {
+        queryPlans.record(jpql);
+        return entityManager.createQuery(jpql);
+    }
+
+    /**
+     * Sets hasNext and trims the extra row read past the page size
+     */
+    private void window(final Page<T> page, final List<T> rows, final int size) {
+        page.setHasNext(rows.size() > size);
+        page.setContent(rows.size() > size ? new ArrayList<>(rows.subList(0, size)) : rows);
+    }
+
+    /**
+     * The requested order followed by the id, or only the id appended to the query's own ORDER BY when it has one
+     */
+    private static String orderBy(final SortOrder sort, final EntityType<?> entityType, final String sql)
+            throws BounceHttpException {
+        final boolean ordered = CountQuery.ordered(sql);
+        if (ordered && !sort.getOrders().isEmpty()) {
+            throw new BounceHttpException(400, "Request Parameter order is not supported");
+        }
+        final String id = entityType.getId(entityType.getIdType().getJavaType()).getName();
+        final boolean byId = sort.getOrders().stream().anyMatch(order -> order.getPropertyName().equals(id));
+        if (byId) { return sort.getClause(); }
+        if (sort.getOrders().isEmpty()) { return (ordered ? ", t." : " ORDER BY t.") + id + " ASC"; }
+        return sort.getClause() + ", t." + id + " ASC";
+    }
+
+    private Long count(final Pageable pageable, final String key, final Supplier<Long> estimate,
+                       final Supplier<Long> exact) {
+        switch (pageable.getCount()) {
+            case NONE: return null;
+            case CACHED: return countCache.get(getGenericTypeClass().getName() + ":" + key, exact);
+            case ESTIMATED:
+                final Long estimated = estimate.get();
+                return estimated != null ? estimated : exact.get();
+            default: return exact.get();
+        }
+    }
+
+    /**
+     * Table row estimate kept by MySQL (information_schema) or PostgreSQL (pg_class), null for other databases or
+     * when the table has no statistics yet
+     */
+    private Long estimate(final EntityManager entityManager, final Class type) {
+        final SessionFactoryImplementor factory = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class);
+        final Dialect dialect = factory.getJdbcServices().getDialect();
+        final String table = ((AbstractEntityPersister) factory.getMetamodel().entityPersister(type))
+                .getTableName().replaceAll("[`\"]", "");
+        final String sql;
+        if (dialect instanceof MySQLDialect) {
+            sql = "SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?1";
+        } else if (dialect instanceof PostgreSQL81Dialect) {
+            sql = "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE relname = ?1 AND relkind = 'r'";
+        } else {
+            return null;
+        }
+        final List rows = entityManager.createNativeQuery(sql).setParameter(1, table).getResultList();
+        if (rows.isEmpty() || rows.get(0) == null) { return null; }
+        final long estimated = ((Number) rows.get(0)).longValue();
+        return estimated < 0 ? null : estimated;
     }
 }
@@ -0,0 +1,68 @@
+package com.github.davidrobbo.bounce.repository;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.support.RegionNameQualifier;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import javax.cache.Cache;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JCache region factory creating a bounded Caffeine cache for every entity and query region on demand, so no
+ * provider configuration file is needed. Entries are evicted past {@code maxSize} per region and, when
+ * {@code expireAfterWriteMillis} is positive, that long after being written.
+ *
+ * The update timestamps region is never bounded: evicting a timestamp would let the query cache serve results
+ * older than the last write to a table.
+ *
+ * Caches are only looked up among those already created: Caffeine's CacheManager.getCache would otherwise try to
+ * read each region from its configuration file, warning on region names such as nested entity classes.
+ */
+public class CaffeineRegionFactory extends JCacheRegionFactory {
+
+    private final long maxSize;
+    private final long expireAfterWriteMillis;
+    private final Set<String> timestampsRegions = Collections.synchronizedSet(new HashSet<>());
+
+    public CaffeineRegionFactory(final long maxSize, final long expireAfterWriteMillis) {
+        this.maxSize = maxSize;
+        this.expireAfterWriteMillis = expireAfterWriteMillis;
+    }
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(final String regionName,
+                                                                final SessionFactoryImplementor sessionFactory) {
+        timestampsRegions.add(regionName);
+        return super.createTimestampsRegionStorageAccess(regionName, sessionFactory);
+    }
+
+    @Override
+    protected Cache<Object, Object> getOrCreateCache(final String unqualifiedRegionName,
+                                                     final SessionFactoryImplementor sessionFactory) {
+        final String regionName = RegionNameQualifier.INSTANCE.qualify(unqualifiedRegionName,
+                sessionFactory.getSessionFactoryOptions());
+        for (final String name : getCacheManager().getCacheNames()) {
+            if (name.equals(regionName)) { return getCacheManager().getCache(regionName); }
+        }
+        return createCache(regionName);
+    }
+
+    @Override
+    protected Cache<Object, Object> createCache(final String regionName) {
+        final CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        if (!timestampsRegions.contains(regionName)) {
+            configuration.setMaximumSize(OptionalLong.of(maxSize));
+            if (expireAfterWriteMillis > 0) {
+                configuration.setExpireAfterWrite(
+                        OptionalLong.of(TimeUnit.MILLISECONDS.toNanos(expireAfterWriteMillis)));
+            }
+        }
+        return getCacheManager().createCache(regionName, configuration);
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.davidrobbo.bounce.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of COUNT results for {@link com.github.davidrobbo.bounce.vertx.web.CountMode#CACHED}, keyed by
+ * query and parameters. Counts are not invalidated by writes, only by expiry.
+ */
+public class CountCache {
+
+    private final Cache<String, Long> cache;
+
+    public CountCache(final long maxSize, final long ttlMillis) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * @return the cached count, computing and caching it when missing or expired
+     */
+    public Long get(final String key, final Supplier<Long> count) {
+        return cache.get(key, k -> count.get());
+    }
+}
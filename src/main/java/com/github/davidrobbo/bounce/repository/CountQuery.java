@@ -0,0 +1,78 @@
+package com.github.davidrobbo.bounce.repository;
+
+import java.util.regex.Pattern;
+
+/**
+ * Derives the COUNT query of a JPQL query: the select clause is replaced at the top level FROM, so sub queries and
+ * string literals are left alone, a top level ORDER BY is dropped and fetch joins become plain joins. SELECT
+ * DISTINCT x counts distinct x. Queries with GROUP BY are not supported.
+ *
+ * It also tells whether a query is ordered at the top level, so paging appends to its ORDER BY instead of adding one.
+ */
+final class CountQuery {
+
+    private static final Pattern JOIN_FETCH = Pattern.compile("(?i)\\bjoin\\s+fetch\\b");
+
+    private CountQuery() {
+    }
+
+    static String of(final String query) {
+        final String trimmed = query.trim();
+        final int from = keyword(trimmed, "FROM", 0);
+        if (from < 0) { throw new IllegalArgumentException("No FROM clause in query " + query); }
+        final int order = orderBy(trimmed, from);
+        final String body = JOIN_FETCH.matcher(trimmed.substring(from, order < 0 ? trimmed.length() : order).trim())
+                .replaceAll("JOIN");
+        final String select = trimmed.substring(0, from).trim();
+        final int distinct = keyword(select, "DISTINCT", 0);
+        if (distinct >= 0) {
+            return "SELECT COUNT(" + select.substring(distinct).trim() + ") " + body;
+        }
+        return "SELECT COUNT(*) " + body;
+    }
+
+    /**
+     * @return whether the query has a top level ORDER BY
+     */
+    static boolean ordered(final String query) {
+        return orderBy(query, 0) >= 0;
+    }
+
+    private static int orderBy(final String query, int start) {
+        int order;
+        while ((order = keyword(query, "ORDER", start)) >= 0) {
+            int next = order + "ORDER".length();
+            while (next < query.length() && Character.isWhitespace(query.charAt(next))) { next++; }
+            if (keyword(query, "BY", next) == next) { return order; }
+            start = next;
+        }
+        return -1;
+    }
+
+    /**
+     * @return index of the first whole word, case insensitive match of keyword at parenthesis depth 0 outside of
+     * string literals, or -1
+     */
+    private static int keyword(final String query, final String keyword, final int start) {
+        int depth = 0;
+        boolean literal = false;
+        for (int i = start; i < query.length(); i++) {
+            final char c = query.charAt(i);
+            if (literal) {
+                if (c == '\'') { literal = false; }
+            } else if (c == '\'') {
+                literal = true;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth == 0 && query.regionMatches(true, i, keyword, 0, keyword.length())
+                    && (i == 0 || !Character.isJavaIdentifierPart(query.charAt(i - 1)))
+                    && (i + keyword.length() == query.length()
+                        || !Character.isJavaIdentifierPart(query.charAt(i + keyword.length())))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
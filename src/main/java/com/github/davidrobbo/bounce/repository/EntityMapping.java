@@ -0,0 +1,195 @@
+package com.github.davidrobbo.bounce.repository;
+
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import javax.persistence.*;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Table and basic columns of an entity read from its JPA annotations, for repositories that send SQL themselves.
+ * Fields annotated as relations, embedded or transient are not mapped. The table is @Table's name, else the
+ * entity name; a column is @Column's name, else the field name.
+ *
+ * Rows are matched to fields ignoring the case of column labels, as databases differ in how they report them.
+ */
+final class EntityMapping<T> {
+
+    private static final List<Class<? extends Annotation>> UNMAPPED = Arrays.asList(
+            Transient.class, OneToOne.class, OneToMany.class, ManyToOne.class, ManyToMany.class, Embedded.class,
+            EmbeddedId.class, ElementCollection.class);
+
+    private final Class<T> type;
+    private final Constructor<T> constructor;
+    private final String table;
+    private final Field id;
+    private final Map<String, Field> properties = new LinkedHashMap<>();
+    private final Map<String, String> columns = new HashMap<>();
+    private final Map<String, Field> labels = new HashMap<>();
+    private final String select;
+
+    EntityMapping(final Class<T> type) {
+        this.type = type;
+        try {
+            constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(type.getName() + " needs a no argument constructor");
+        }
+        final Table annotation = type.getAnnotation(Table.class);
+        final Entity entity = type.getAnnotation(Entity.class);
+        table = annotation != null && !annotation.name().isEmpty() ? annotation.name()
+                : entity != null && !entity.name().isEmpty() ? entity.name() : type.getSimpleName();
+        Field idField = null;
+        for (Class<?> clazz = type; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            for (final Field field : clazz.getDeclaredFields()) {
+                if (!mapped(field) || properties.containsKey(field.getName())) { continue; }
+                field.setAccessible(true);
+                final Column column = field.getAnnotation(Column.class);
+                final String name = column != null && !column.name().isEmpty() ? column.name() : field.getName();
+                properties.put(field.getName(), field);
+                columns.put(field.getName(), name);
+                labels.put(name.toLowerCase(Locale.ROOT), field);
+                if (idField == null && field.isAnnotationPresent(Id.class)) { idField = field; }
+            }
+        }
+        if (idField == null) { throw new IllegalStateException(type.getName() + " has no @Id field"); }
+        id = idField;
+        select = "SELECT " + String.join(", ", columns()) + " FROM " + table;
+    }
+
+    Class<T> getType() {
+        return type;
+    }
+
+    String getTable() {
+        return table;
+    }
+
+    /**
+     * @return "SELECT a, b FROM table"
+     */
+    String getSelect() {
+        return select;
+    }
+
+    String getIdColumn() {
+        return columns.get(id.getName());
+    }
+
+    String getIdProperty() {
+        return id.getName();
+    }
+
+    /**
+     * @return the name when it is a mapped property, otherwise null
+     */
+    String property(final String name) {
+        return properties.containsKey(name) ? name : null;
+    }
+
+    String column(final String property) {
+        return columns.get(property);
+    }
+
+    /**
+     * @return mapped columns, in field order
+     */
+    List<String> columns() {
+        return properties.keySet().stream().map(columns::get).collect(Collectors.toList());
+    }
+
+    T row(final JsonObject row) {
+        try {
+            final T t = constructor.newInstance();
+            for (final String label : row.fieldNames()) {
+                final Field field = labels.get(label.toLowerCase(Locale.ROOT));
+                final Object value = row.getValue(label);
+                if (field == null || value == null) { continue; }
+                field.set(t, convert(value, field.getType()));
+            }
+            return t;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to map row to " + type.getName(), e);
+        }
+    }
+
+    List<T> rows(final List<JsonObject> rows) {
+        final List<T> ts = new ArrayList<>(rows.size());
+        for (final JsonObject row : rows) { ts.add(row(row)); }
+        return ts;
+    }
+
+    Object getId(final T t) {
+        try { return id.get(t); }
+        catch (IllegalAccessException e) { throw new IllegalStateException(e); }
+    }
+
+    void setId(final T t, final Object value) {
+        try { id.set(t, convert(value, id.getType())); }
+        catch (IllegalAccessException e) { throw new IllegalStateException(e); }
+    }
+
+    /**
+     * @return values of the mapped columns, in {@link #columns()} order, without the id when it is null
+     */
+    JsonArray values(final T t) {
+        final JsonArray values = new JsonArray();
+        try {
+            for (final Field field : properties.values()) {
+                final Object value = field.get(t);
+                if (field == id && value == null) { continue; }
+                values.add(param(value));
+            }
+        } catch (IllegalAccessException e) { throw new IllegalStateException(e); }
+        return values;
+    }
+
+    /**
+     * @return columns {@link #values(Object)} are given for
+     */
+    List<String> columns(final T t) {
+        final List<String> names = columns();
+        if (getId(t) == null) { names.remove(getIdColumn()); }
+        return names;
+    }
+
+    /**
+     * A value as a SQL client parameter: JSON types and Instants as they are, dates as Instants, enums by name,
+     * anything else as its string form
+     */
+    static Object param(final Object value) {
+        if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean
+                || value instanceof Instant || value instanceof byte[]) { return value; }
+        if (value instanceof Date) { return Instant.ofEpochMilli(((Date) value).getTime()); }
+        if (value instanceof Enum) { return ((Enum) value).name(); }
+        return String.valueOf(value);
+    }
+
+    private static Object convert(final Object value, final Class<?> type) {
+        if (type.isInstance(value)) { return value; }
+        return Json.mapper.convertValue(value, type);
+    }
+
+    private static boolean mapped(final Field field) {
+        if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) { return false; }
+        for (final Class<? extends Annotation> annotation : UNMAPPED) {
+            if (field.isAnnotationPresent(annotation)) { return false; }
+        }
+        return true;
+    }
+}
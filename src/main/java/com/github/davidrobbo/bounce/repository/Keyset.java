@@ -0,0 +1,114 @@
+package com.github.davidrobbo.bounce.repository;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.github.davidrobbo.bounce.vertx.web.BounceHttpException;
+import io.vertx.core.json.Json;
+import org.hibernate.criterion.Conjunction;
+import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.Disjunction;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Restrictions;
+
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Keyset (seek) pagination over an ordering that always ends with the id, so it is total. A cursor is the
+ * url safe Base64 of the JSON array of the last row's sort key values, and the next page is every row strictly
+ * after it: {@code (k1 > :k1) OR (k1 = :k1 AND k2 > :k2) ...}, using {@code <} for descending keys. This is the
+ * expanded form of {@code (k1, k2) > (:k1, :k2)}, which the criteria API cannot express and not every database
+ * supports. Sort keys must be non null.
+ */
+final class Keyset {
+
+    private final List<Order> orders;
+    private final List<Attribute<?, ?>> attributes;
+
+    private Keyset(final List<Order> orders, final List<Attribute<?, ?>> attributes) {
+        this.orders = orders;
+        this.attributes = attributes;
+    }
+
+    /**
+     * @param sort requested ordering, may be empty; the id is appended as the final tie breaker, in the direction
+     *             of the last sort key
+     */
+    static Keyset of(final EntityType<?> entityType, final List<Order> sort) {
+        final Attribute<?, ?> id = entityType.getId(entityType.getIdType().getJavaType());
+        final List<Order> orders = new ArrayList<>();
+        final List<Attribute<?, ?>> attributes = new ArrayList<>();
+        boolean ascending = true;
+        for (final Order order : sort) {
+            attributes.add(entityType.getAttribute(order.getPropertyName()));
+            orders.add(order);
+            ascending = order.isAscending();
+            if (order.getPropertyName().equals(id.getName())) { return new Keyset(orders, attributes); }
+        }
+        orders.add(ascending ? Order.asc(id.getName()) : Order.desc(id.getName()));
+        attributes.add(id);
+        return new Keyset(orders, attributes);
+    }
+
+    List<Order> getOrders() {
+        return orders;
+    }
+
+    /**
+     * @return restriction selecting the rows after the cursor
+     */
+    Criterion after(final String cursor) throws Exception {
+        final List<Object> values = decode(cursor);
+        final Disjunction any = Restrictions.disjunction();
+        for (int i = 0; i < orders.size(); i++) {
+            final Conjunction all = Restrictions.conjunction();
+            for (int j = 0; j < i; j++) { all.add(Restrictions.eq(orders.get(j).getPropertyName(), values.get(j))); }
+            final String property = orders.get(i).getPropertyName();
+            all.add(orders.get(i).isAscending() ? Restrictions.gt(property, values.get(i)) :
+                    Restrictions.lt(property, values.get(i)));
+            any.add(all);
+        }
+        return any;
+    }
+
+    /**
+     * @return cursor positioned on the given row
+     */
+    String cursor(final Object row) throws Exception {
+        final List<Object> values = new ArrayList<>(attributes.size());
+        for (final Attribute<?, ?> attribute : attributes) { values.add(read(attribute.getJavaMember(), row)); }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Json.mapper.writeValueAsBytes(values));
+    }
+
+    private List<Object> decode(final String cursor) throws Exception {
+        final List<Object> json;
+        try {
+            json = Json.mapper.readValue(Base64.getUrlDecoder().decode(cursor), new TypeReference<List<Object>>() {});
+        } catch (Exception e) { throw new BounceHttpException(400, "Request Parameter cursor is invalid"); }
+        if (json == null || json.size() != attributes.size()) {
+            throw new BounceHttpException(400, "Request Parameter cursor is invalid");
+        }
+        final List<Object> values = new ArrayList<>(json.size());
+        for (int i = 0; i < json.size(); i++) {
+            try { values.add(Json.mapper.convertValue(json.get(i), attributes.get(i).getJavaType())); }
+            catch (IllegalArgumentException e) {
+                throw new BounceHttpException(400, "Request Parameter cursor is invalid");
+            }
+        }
+        return values;
+    }
+
+    private static Object read(final Member member, final Object row) throws Exception {
+        if (member instanceof Field) {
+            ((Field) member).setAccessible(true);
+            return ((Field) member).get(row);
+        }
+        ((Method) member).setAccessible(true);
+        return ((Method) member).invoke(row);
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.davidrobbo.bounce.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Named JPQL queries shared by the repositories of a persistence unit, and the JPQL strings derived from them.
+ *
+ * Queries registered with {@link #register(String, String)} are compiled straight away, so a broken query fails at
+ * startup, and become EntityManagerFactory named queries. Count queries are derived once per query string.
+ *
+ * Hibernate 5.3 does not report query plan cache hits, so every query string BaseRepository sends is also recorded
+ * in an LRU bounded like the plan cache (hibernate.query.plan_cache_max_size). Its hits and misses show how often a
+ * plan is likely reused rather than compiled again.
+ */
+public class QueryPlans {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final Map<String, String> named = new ConcurrentHashMap<>();
+    private final Cache<String, String> counts;
+    private final Cache<String, Boolean> plans;
+
+    public QueryPlans(final EntityManagerFactory entityManagerFactory, final long maxSize) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.counts = Caffeine.newBuilder().maximumSize(maxSize).build();
+        this.plans = Caffeine.newBuilder().maximumSize(maxSize).recordStats().build();
+    }
+
+    /**
+     * Compile and register a named query, registering the same name and query again does nothing
+     */
+    public void register(final String name, final String jpql) {
+        if (jpql.equals(named.get(name))) { return; }
+        final EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try { entityManagerFactory.addNamedQuery(name, entityManager.createQuery(jpql)); }
+        finally { entityManager.close(); }
+        named.put(name, jpql);
+    }
+
+    /**
+     * @return JPQL of a query registered here or declared with @NamedQuery
+     */
+    public String jpql(final String name) {
+        return named.computeIfAbsent(name, key -> {
+            final EntityManager entityManager = entityManagerFactory.createEntityManager();
+            try {
+                return entityManager.createNamedQuery(key).unwrap(org.hibernate.query.Query.class).getQueryString();
+            } finally { entityManager.close(); }
+        });
+    }
+
+    /**
+     * @return the COUNT query of a JPQL query, see {@link CountQuery}
+     */
+    public String count(final String jpql) {
+        return counts.get(jpql, CountQuery::of);
+    }
+
+    /**
+     * Record a query string about to be sent
+     */
+    public void record(final String jpql) {
+        plans.get(jpql, key -> Boolean.TRUE);
+    }
+
+    public long getHits() {
+        return plans.stats().hitCount();
+    }
+
+    public long getMisses() {
+        return plans.stats().missCount();
+    }
+
+    public long getSize() {
+        return plans.estimatedSize();
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.davidrobbo.bounce.repository;
+
+import com.github.davidrobbo.bounce.vertx.web.BounceHttpException;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Named worker pool dedicated to a persistence unit, sized to its connection pool, so repository calls neither
+ * queue behind each other (tasks run unordered) nor compete with other blocking work on the shared worker pool.
+ *
+ * When {@code maxQueueDepth} is positive, tasks arriving while every worker is busy and that many tasks are
+ * already waiting fail immediately with a 503 instead of queueing.
+ */
+public class RepositoryExecutor {
+
+    private final WorkerExecutor executor;
+    private final int poolSize;
+    private final int maxQueueDepth;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public RepositoryExecutor(final Vertx vertx, final String name, final int poolSize, final int maxQueueDepth) {
+        this.executor = vertx.createSharedWorkerExecutor(name, poolSize);
+        this.poolSize = poolSize;
+        this.maxQueueDepth = maxQueueDepth;
+    }
+
+    /**
+     * Run a blocking task on the repository pool, unordered
+     */
+    public <T> void execute(final Handler<Future<T>> blockingHandler, final Handler<AsyncResult<T>> resultHandler) {
+        execute(blockingHandler, false, resultHandler);
+    }
+
+    /**
+     * Run a blocking task on the repository pool, serialised with other ordered tasks from the same context. Ordered
+     * tasks continue work that was already admitted (e.g. a ReadStream holding an EntityManager) and are never
+     * rejected.
+     */
+    public <T> void executeOrdered(final Handler<Future<T>> blockingHandler,
+                                   final Handler<AsyncResult<T>> resultHandler) {
+        execute(blockingHandler, true, resultHandler);
+    }
+
+    /**
+     * @return tasks currently running or waiting for a worker
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void close() {
+        executor.close();
+    }
+
+    private <T> void execute(final Handler<Future<T>> blockingHandler, final boolean ordered,
+                             final Handler<AsyncResult<T>> resultHandler) {
+        if (inFlight.incrementAndGet() > poolSize + maxQueueDepth && maxQueueDepth > 0 && !ordered) {
+            inFlight.decrementAndGet();
+            if (resultHandler != null) {
+                resultHandler.handle(Future.failedFuture(new BounceHttpException(503, "Service Unavailable")));
+            }
+            return;
+        }
+        executor.<T>executeBlocking(blockingHandler, ordered, result -> {
+            inFlight.decrementAndGet();
+            if (resultHandler != null) { resultHandler.handle(result); }
+        });
+    }
+}
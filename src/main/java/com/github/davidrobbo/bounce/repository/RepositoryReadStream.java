@@ -0,0 +1,159 @@
+package com.github.davidrobbo.bounce.repository;
+
+import io.vertx.core.Handler;
+import io.vertx.core.streams.ReadStream;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * ReadStream over a forward only Hibernate scroll. Rows are fetched on a worker thread in batches of
+ * {@code batchSize}, only while the stream is not paused, and the persistence context is cleared after every
+ * batch, so memory stays constant however many rows the query returns. The EntityManager is closed once the
+ * results are exhausted, on failure or when {@link #close()} is called.
+ *
+ * Ordered tasks on the RepositoryExecutor guarantee the EntityManager is never used by two threads at once. They run
+ * inside {@link RoutingDataSource#reading(Runnable)}, so the scroll holds a replica connection when there are any.
+ *
+ * Note MySQL Connector/J only honours the fetch size with useCursorFetch=true on the datasource url.
+ */
+@SuppressWarnings("unchecked")
+final class RepositoryReadStream<T> implements ReadStream<T>, AutoCloseable {
+
+    private final RepositoryExecutor executor;
+    private final Supplier<EntityManager> entityManagerSupplier;
+    private final Function<EntityManager, Query> querySupplier;
+    private final int batchSize;
+    private final Deque<T> queue = new ArrayDeque<>();
+
+    private EntityManager entityManager;
+    private ScrollableResults results;
+    private Handler<T> handler;
+    private Handler<Void> endHandler;
+    private Handler<Throwable> exceptionHandler;
+    private boolean paused;
+    private boolean fetching;
+    private boolean exhausted;
+    private boolean ended;
+    private volatile boolean closed;
+
+    RepositoryReadStream(final RepositoryExecutor executor, final Supplier<EntityManager> entityManagerSupplier,
+                         final Function<EntityManager, Query> querySupplier, final int batchSize) {
+        this.executor = executor;
+        this.entityManagerSupplier = entityManagerSupplier;
+        this.querySupplier = querySupplier;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public ReadStream<T> exceptionHandler(final Handler<Throwable> handler) {
+        this.exceptionHandler = handler;
+        return this;
+    }
+
+    @Override
+    public ReadStream<T> handler(final Handler<T> handler) {
+        this.handler = handler;
+        if (handler != null) { deliver(); }
+        return this;
+    }
+
+    @Override
+    public ReadStream<T> pause() {
+        paused = true;
+        return this;
+    }
+
+    @Override
+    public ReadStream<T> resume() {
+        paused = false;
+        deliver();
+        return this;
+    }
+
+    @Override
+    public ReadStream<T> endHandler(final Handler<Void> endHandler) {
+        this.endHandler = endHandler;
+        return this;
+    }
+
+    /**
+     * Stop fetching and release the EntityManager, e.g. when the client disconnects part way through
+     */
+    @Override
+    public void close() {
+        if (closed) { return; }
+        closed = true;
+        queue.clear();
+        executor.executeOrdered(future -> {
+            closeResources();
+            future.complete();
+        }, null);
+    }
+
+    private void deliver() {
+        while (!paused && handler != null && !queue.isEmpty()) { handler.handle(queue.poll()); }
+        if (paused || handler == null || closed || ended || !queue.isEmpty()) { return; }
+        if (exhausted) {
+            ended = true;
+            if (endHandler != null) { endHandler.handle(null); }
+        } else if (!fetching) { fetch(); }
+    }
+
+    private void fetch() {
+        fetching = true;
+        executor.<List<T>>executeOrdered(future -> RoutingDataSource.reading(() -> {
+            try { future.complete(readBatch()); }
+            catch (Exception e) {
+                closeResources();
+                future.fail(e);
+            }
+        }), result -> {
+            fetching = false;
+            if (closed) { return; }
+            if (result.failed()) {
+                closed = true;
+                if (exceptionHandler != null) { exceptionHandler.handle(result.cause()); }
+                return;
+            }
+            if (result.result().size() < batchSize) { exhausted = true; }
+            queue.addAll(result.result());
+            deliver();
+        });
+    }
+
+    private List<T> readBatch() {
+        final List<T> rows = new ArrayList<>(batchSize);
+        if (closed) { return rows; }
+        if (results == null) {
+            entityManager = entityManagerSupplier.get();
+            results = querySupplier.apply(entityManager)
+                    .unwrap(org.hibernate.query.Query.class)
+                    .setFetchSize(batchSize)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+        }
+        while (rows.size() < batchSize && results.next()) { rows.add((T) results.get(0)); }
+        entityManager.clear();
+        if (rows.size() < batchSize) { closeResources(); }
+        return rows;
+    }
+
+    private void closeResources() {
+        if (results != null) {
+            results.close();
+            results = null;
+        }
+        if (entityManager != null && entityManager.isOpen()) {
+            entityManager.close();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.github.davidrobbo.bounce.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource handing out replica connections to threads inside {@link #reading(Runnable)} (BaseRepository reads
+ * outside a transaction) and primary connections to everything else. Replicas are used round robin.
+ *
+ * A background check runs every {@code checkIntervalMillis}. It takes a replica out of rotation when it cannot be
+ * reached or, given a lag query, when it is more than {@code maxLagSeconds} behind. The lag query may return the
+ * lag in seconds as its first column or, like MySQL's SHOW SLAVE STATUS, in a Seconds_Behind_Master column. A
+ * replica that fails to hand out a connection is also taken out at once, and reads fall back to the primary while
+ * no replica is healthy.
+ *
+ * Replicas lag behind the primary, so a read straight after a write may not see it.
+ */
+public class RoutingDataSource implements DataSource, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RoutingDataSource.class);
+    private static final ThreadLocal<Boolean> READING = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final AtomicBoolean[] healthy;
+    private final String lagQuery;
+    private final long maxLagSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService checks;
+
+    public RoutingDataSource(final DataSource primary, final List<? extends DataSource> replicas, final String lagQuery,
+                             final long maxLagSeconds, final long checkIntervalMillis) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>(replicas);
+        this.healthy = new AtomicBoolean[replicas.size()];
+        for (int i = 0; i < healthy.length; i++) { healthy[i] = new AtomicBoolean(); }
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLagSeconds;
+        this.checks = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "bounce-replica-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        check();
+        checks.scheduleWithFixedDelay(this::check, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Run the action with connections acquired on this thread taken from a replica
+     */
+    public static void reading(final Runnable action) {
+        final Boolean outer = READING.get();
+        READING.set(Boolean.TRUE);
+        try { action.run(); }
+        finally {
+            if (outer == null) { READING.remove(); }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (READING.get() != null) {
+            for (int attempt = 0; attempt < replicas.size(); attempt++) {
+                final int index = Math.floorMod(next.getAndIncrement(), replicas.size());
+                if (!healthy[index].get()) { continue; }
+                try { return replicas.get(index).getConnection(); }
+                catch (SQLException e) {
+                    healthy[index].set(false);
+                    LOGGER.warn("Replica " + index + " unavailable, taken out of rotation", e);
+                }
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * @return replicas currently in rotation
+     */
+    public int getHealthyReplicas() {
+        int count = 0;
+        for (final AtomicBoolean replica : healthy) { if (replica.get()) { count++; } }
+        return count;
+    }
+
+    /**
+     * Stops the checks and closes the replica pools, the primary is left open
+     */
+    @Override
+    public void close() {
+        checks.shutdownNow();
+        for (final DataSource replica : replicas) {
+            if (!(replica instanceof AutoCloseable)) { continue; }
+            try { ((AutoCloseable) replica).close(); }
+            catch (Exception e) { LOGGER.warn("Failed to close replica pool", e); }
+        }
+    }
+
+    private void check() {
+        for (int i = 0; i < replicas.size(); i++) {
+            final boolean now = check(replicas.get(i));
+            if (healthy[i].getAndSet(now) != now) {
+                LOGGER.info("Replica " + i + (now ? " in rotation" : " taken out of rotation"));
+            }
+        }
+    }
+
+    private boolean check(final DataSource replica) {
+        try (Connection connection = replica.getConnection()) {
+            if (lagQuery == null) { return connection.isValid(5); }
+            try (Statement statement = connection.createStatement();
+                 ResultSet result = statement.executeQuery(lagQuery)) {
+                if (!result.next()) { return false; }
+                final long lag = result.getLong(lagColumn(result));
+                return !result.wasNull() && lag <= maxLagSeconds;
+            }
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static int lagColumn(final ResultSet result) throws SQLException {
+        try { return result.findColumn("Seconds_Behind_Master"); }
+        catch (SQLException e) { return 1; }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(final PrintWriter out) throws SQLException {
+        primary.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(final int seconds) throws SQLException {
+        primary.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return primary.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(final Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) { return iface.cast(this); }
+        return primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(final Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.davidrobbo.bounce.repository;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.asyncsql.MySQLClient;
+import io.vertx.ext.asyncsql.PostgreSQLClient;
+import io.vertx.ext.sql.SQLClient;
+
+/**
+ * Creates the non blocking SQLClient used by every {@link AsyncRepository} of a verticle, see
+ * EnableAsyncRepositories. Implementations need a public no argument constructor.
+ */
+@FunctionalInterface
+public interface SQLClientFactory {
+
+    String POOL_NAME = "bounce-async-default";
+
+    /**
+     * @param config the datasource.async object of the verticle config
+     */
+    SQLClient create(Vertx vertx, JsonObject config);
+
+    /**
+     * Vert.x MySQL async client (host, port, database, username, password, maxPoolSize, ...)
+     */
+    class MySQL implements SQLClientFactory {
+        @Override
+        public SQLClient create(final Vertx vertx, final JsonObject config) {
+            return MySQLClient.createShared(vertx, config, POOL_NAME);
+        }
+    }
+
+    /**
+     * Vert.x PostgreSQL async client, configured like {@link MySQL}
+     */
+    class PostgreSQL implements SQLClientFactory {
+        @Override
+        public SQLClient create(final Vertx vertx, final JsonObject config) {
+            return PostgreSQLClient.createShared(vertx, config, POOL_NAME);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.github.davidrobbo.bounce.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.davidrobbo.bounce.vertx.web.BounceHttpException;
+import org.hibernate.criterion.Order;
+
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A Pageable order ({@code name,asc;id,desc}) resolved against the entity metamodel. Every key must be a basic
+ * attribute of the entity, so nothing the client sends reaches the query text, and the ORDER BY is rebuilt from
+ * the attribute names in one canonical form, so equivalent requests share a single Hibernate query plan.
+ *
+ * An order resolved against an {@link EntityMapping} instead renders SQL over the mapped columns, for AsyncRepository.
+ *
+ * Resolved orders are cached per entity and order string; invalid ones are rejected with a 400 and never cached.
+ */
+final class SortOrder {
+
+    static final int MAX_KEYS = 4;
+
+    private static final SortOrder NONE = new SortOrder(Collections.emptyList(), "");
+    private static final Cache<String, SortOrder> CACHE = Caffeine.newBuilder().maximumSize(1000).build();
+
+    private final List<Order> orders;
+    private final String clause;
+
+    private SortOrder(final List<Order> orders, final String clause) {
+        this.orders = orders;
+        this.clause = clause;
+    }
+
+    static SortOrder of(final EntityType<?> entityType, final String order) throws BounceHttpException {
+        return of(entityType.getJavaType().getName(), order, name -> basicAttribute(entityType, name),
+                property -> "t." + property);
+    }
+
+    static SortOrder of(final EntityMapping<?> mapping, final String order) throws BounceHttpException {
+        return of("sql:" + mapping.getType().getName(), order, mapping::property, mapping::column);
+    }
+
+    private static SortOrder of(final String type, final String order, final Function<String, String> property,
+                                final Function<String, String> render) throws BounceHttpException {
+        if (order == null || order.trim().isEmpty()) { return NONE; }
+        final String key = type + "|" + order;
+        final SortOrder cached = CACHE.getIfPresent(key);
+        if (cached != null) { return cached; }
+        final SortOrder resolved = resolve(order, property, render);
+        CACHE.put(key, resolved);
+        return resolved;
+    }
+
+    /**
+     * @return criteria orders, in key order
+     */
+    List<Order> getOrders() {
+        return orders;
+    }
+
+    /**
+     * @return " ORDER BY t.a ASC, t.b DESC" for queries aliasing the entity as t, or " ORDER BY a ASC, b DESC" over
+     * the columns of an EntityMapping, empty when unordered
+     */
+    String getClause() {
+        return clause;
+    }
+
+    private static SortOrder resolve(final String order, final Function<String, String> attribute,
+                                     final Function<String, String> render) throws BounceHttpException {
+        final String[] keys = order.split(";");
+        if (keys.length > MAX_KEYS) {
+            throw new BounceHttpException(400, "Request Parameter order has more than " + MAX_KEYS + " keys");
+        }
+        final List<Order> orders = new ArrayList<>(keys.length);
+        final Set<String> properties = new HashSet<>();
+        final StringBuilder clause = new StringBuilder(" ORDER BY ");
+        for (final String key : keys) {
+            final String[] split = key.trim().split(",");
+            if (split.length > 2) { throw invalid(key); }
+            final String property = attribute.apply(split[0].trim());
+            final String direction = split.length == 2 ? split[1].trim().toLowerCase(Locale.ROOT) : "asc";
+            if (property == null || !properties.add(property)) { throw invalid(key); }
+            if (!direction.equals("asc") && !direction.equals("desc")) { throw invalid(key); }
+            if (!orders.isEmpty()) { clause.append(", "); }
+            clause.append(render.apply(property)).append(direction.equals("asc") ? " ASC" : " DESC");
+            orders.add(direction.equals("asc") ? Order.asc(property) : Order.desc(property));
+        }
+        return new SortOrder(Collections.unmodifiableList(orders), clause.toString());
+    }
+
+    /**
+     * @return the attribute's name when the entity has a basic attribute by that name, otherwise null
+     */
+    private static String basicAttribute(final EntityType<?> entityType, final String name) {
+        final Attribute<?, ?> attribute;
+        try { attribute = entityType.getAttribute(name); }
+        catch (IllegalArgumentException e) { return null; }
+        return attribute instanceof SingularAttribute
+                && attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC
+                ? attribute.getName() : null;
+    }
+
+    private static BounceHttpException invalid(final String key) {
+        return new BounceHttpException(400, "Request Parameter order is invalid: " + key.trim());
+    }
+}
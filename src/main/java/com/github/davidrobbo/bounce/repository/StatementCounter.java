@@ -0,0 +1,21 @@
+package com.github.davidrobbo.bounce.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements prepared by the one session it is attached to
+ */
+final class StatementCounter implements StatementInspector {
+
+    private volatile int count;
+
+    @Override
+    public String inspect(final String sql) {
+        count++;
+        return sql;
+    }
+
+    int getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,120 @@
+package com.github.davidrobbo.bounce.repository;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import org.hibernate.SessionFactory;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import java.util.function.Supplier;
+
+/**
+ * Runs several BaseRepository calls as one unit of work: one repository worker task, one EntityManager, one
+ * connection and one transaction, committed when the future returned by the work succeeds and rolled back
+ * otherwise. Used by @Transactional @RequestMapping methods and injectable for use elsewhere:
+ * <pre>
+ * transactions.execute(() -> fooRepository.save(foo).compose(saved -> barRepository.save(bar)));
+ * </pre>
+ *
+ * The work runs on the worker thread. Repository calls made from it join the unit and complete before they
+ * return, so the work can only compose repository calls and must return a completed future; anything else is
+ * rolled back. Work started inside a unit joins it rather than starting another.
+ */
+public class TransactionTemplate {
+
+    private static final ThreadLocal<Unit> CURRENT = new ThreadLocal<>();
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final RepositoryExecutor repositoryExecutor;
+
+    public TransactionTemplate(final EntityManagerFactory entityManagerFactory,
+                               final RepositoryExecutor repositoryExecutor) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.repositoryExecutor = repositoryExecutor;
+    }
+
+    public <T> Future<T> execute(final Supplier<Future<T>> work) {
+        if (CURRENT.get() != null) { return run(work); }
+        final Future<T> future = Future.future();
+        repositoryExecutor.<T>execute(f1 -> {
+            final StatementCounter statements = new StatementCounter();
+            final EntityManager entityManager = open(entityManagerFactory, statements);
+            CURRENT.set(new Unit(entityManager, statements));
+            Future<T> result;
+            try {
+                entityManager.getTransaction().begin();
+                result = run(work);
+            } finally { CURRENT.remove(); }
+            if (!result.isComplete()) {
+                result = Future.failedFuture(new IllegalStateException(
+                        "Transactional work must complete before it returns, only repository calls may be composed"));
+            }
+            f1.handle(end(entityManager, result));
+        }, future);
+        return future;
+    }
+
+    /**
+     * @return the unit of work bound to this thread, null outside one
+     */
+    static Unit current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * EntityManager counting the SQL statements it sends
+     */
+    static EntityManager open(final EntityManagerFactory entityManagerFactory, final StatementCounter statements) {
+        return entityManagerFactory.unwrap(SessionFactory.class).withOptions()
+                .statementInspector(statements)
+                .openSession();
+    }
+
+    /**
+     * Commits when the work succeeded, otherwise rolls back, then closes the EntityManager
+     *
+     * @return the work's result, or the commit failure
+     */
+    static <T> AsyncResult<T> end(final EntityManager entityManager, final AsyncResult<T> done) {
+        try {
+            final EntityTransaction transaction = entityManager.getTransaction();
+            if (done.succeeded()) {
+                try { transaction.commit(); }
+                catch (Exception e) {
+                    if (transaction.isActive()) { transaction.rollback(); }
+                    return Future.failedFuture(e);
+                }
+            } else if (transaction.isActive()) { transaction.rollback(); }
+            return done;
+        } catch (Exception e) {
+            return done.failed() ? done : Future.failedFuture(e);
+        } finally { entityManager.close(); }
+    }
+
+    private static <T> Future<T> run(final Supplier<Future<T>> work) {
+        try {
+            final Future<T> result = work.get();
+            return result != null ? result : Future.succeededFuture();
+        } catch (Exception | Error e) { return Future.failedFuture(e); }
+    }
+
+    static final class Unit {
+
+        private final EntityManager entityManager;
+        private final StatementCounter statements;
+
+        private Unit(final EntityManager entityManager, final StatementCounter statements) {
+            this.entityManager = entityManager;
+            this.statements = statements;
+        }
+
+        EntityManager getEntityManager() {
+            return entityManager;
+        }
+
+        StatementCounter getStatements() {
+            return statements;
+        }
+    }
+}
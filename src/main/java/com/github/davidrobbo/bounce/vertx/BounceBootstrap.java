@@ -0,0 +1,84 @@
+package com.github.davidrobbo.bounce.vertx;
+
+import com.github.davidrobbo.bounce.repository.RepositoryExecutor;
+import com.github.davidrobbo.bounce.repository.RoutingDataSource;
+import com.github.davidrobbo.bounce.vertx.web.util.Bounce;
+import com.github.davidrobbo.bounce.vertx.web.util.RouteTable;
+import com.google.inject.Binding;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.zaxxer.hikari.HikariDataSource;
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+import io.vertx.ext.sql.SQLClient;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.function.Supplier;
+
+/**
+ * Injector (and with it the EntityManagerFactory and its connection pool) and compiled routes shared by every
+ * instance of a BounceVerticle class deployed on the same Vertx instance. The last instance to stop closes the
+ * EntityManagerFactory, connection pools, async SQL client and repository worker pool.
+ */
+class BounceBootstrap implements Shareable {
+
+    private static final String SHARED_MAP = "__bounce.bootstrap";
+
+    private final Injector injector;
+    private RouteTable routes;
+    private int references;
+
+    private BounceBootstrap(final Injector injector) {
+        this.injector = injector;
+    }
+
+    static BounceBootstrap acquire(final Vertx vertx, final String key, final Supplier<Injector> injector) {
+        synchronized (BounceBootstrap.class) {
+            final LocalMap<String, BounceBootstrap> bootstraps = vertx.sharedData().getLocalMap(SHARED_MAP);
+            BounceBootstrap bootstrap = bootstraps.get(key);
+            if (bootstrap == null) {
+                bootstrap = new BounceBootstrap(injector.get());
+                bootstraps.put(key, bootstrap);
+            }
+            bootstrap.references++;
+            return bootstrap;
+        }
+    }
+
+    static void release(final Vertx vertx, final String key) {
+        synchronized (BounceBootstrap.class) {
+            final LocalMap<String, BounceBootstrap> bootstraps = vertx.sharedData().getLocalMap(SHARED_MAP);
+            final BounceBootstrap bootstrap = bootstraps.get(key);
+            if (bootstrap != null && --bootstrap.references == 0) {
+                bootstraps.remove(key);
+                close(bootstrap.injector);
+            }
+        }
+    }
+
+    Injector getInjector() {
+        return injector;
+    }
+
+    synchronized RouteTable routes(final String[] packagesToScan) throws Exception {
+        if (routes == null) { routes = Bounce.compile(packagesToScan, injector); }
+        return routes;
+    }
+
+    /**
+     * Closes the resources an injector created by BounceConfigModule owns
+     */
+    static void close(final Injector injector) {
+        final Binding<EntityManagerFactory> emf = injector.getExistingBinding(Key.get(EntityManagerFactory.class));
+        if (emf != null) { emf.getProvider().get().close(); }
+        final Binding<RoutingDataSource> replicas = injector.getExistingBinding(Key.get(RoutingDataSource.class));
+        if (replicas != null) { replicas.getProvider().get().close(); }
+        final Binding<HikariDataSource> dataSource = injector.getExistingBinding(Key.get(HikariDataSource.class));
+        if (dataSource != null) { dataSource.getProvider().get().close(); }
+        final Binding<RepositoryExecutor> executor = injector.getExistingBinding(Key.get(RepositoryExecutor.class));
+        if (executor != null) { executor.getProvider().get().close(); }
+        final Binding<SQLClient> sqlClient = injector.getExistingBinding(Key.get(SQLClient.class));
+        if (sqlClient != null) { sqlClient.getProvider().get().close(); }
+    }
+}
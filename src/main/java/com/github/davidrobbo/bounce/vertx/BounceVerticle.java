@@ -3,11 +3,16 @@ package com.github.davidrobbo.bounce.vertx;
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import com.github.davidrobbo.bounce.guice.BounceConfigModule;
+import com.github.davidrobbo.bounce.metrics.BounceMetrics;
+import com.github.davidrobbo.bounce.metrics.EventLoopMonitor;
+import com.github.davidrobbo.bounce.repository.SQLClientFactory;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import com.github.davidrobbo.bounce.vertx.web.annotations.EnableAsyncRepositories;
 import com.github.davidrobbo.bounce.vertx.web.annotations.EnableJPARepositories;
 import com.github.davidrobbo.bounce.vertx.web.annotations.EnableWeb;
 import com.github.davidrobbo.bounce.vertx.web.util.Bounce;
+import com.github.davidrobbo.bounce.vertx.web.util.RouteTable;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Future;
 import io.vertx.core.http.HttpServer;
@@ -17,9 +22,15 @@ import org.slf4j.LoggerFactory;
 
 public class BounceVerticle extends AbstractVerticle {
 
+    private static final long DEFAULT_EVENT_LOOP_INTERVAL = 100;
+    private static final long DEFAULT_BLOCKED_THRESHOLD = 100;
+
     private Injector injector;
+    private EventLoopMonitor eventLoopMonitor;
+    private BounceBootstrap bootstrap;
     private HttpServer httpServer;
     private Router router;
+    private RouteTable routes;
 
     @Override
     public void start(Future<Void> startFuture) throws Exception {
@@ -31,18 +42,56 @@ public class BounceVerticle extends AbstractVerticle {
                     root.setLevel(Level.valueOf(config.getString("log.level")));
                 }
                 final boolean enableHibernate = getClass().isAnnotationPresent(EnableJPARepositories.class);
-                injector = Guice.createInjector(new BounceConfigModule(vertx, enableHibernate));
+                final EnableAsyncRepositories async = getClass().getAnnotation(EnableAsyncRepositories.class);
+                final SQLClientFactory sqlClientFactory = async != null ? async.value().newInstance() : null;
+                if (config.getBoolean("bounce.shared", false)) {
+                    bootstrap = BounceBootstrap.acquire(vertx, getClass().getName(), () ->
+                            Guice.createInjector(new BounceConfigModule(vertx, enableHibernate, sqlClientFactory)));
+                    injector = bootstrap.getInjector();
+                } else {
+                    injector = Guice.createInjector(new BounceConfigModule(vertx, enableHibernate, sqlClientFactory));
+                }
                 future.complete();
             } catch (Exception e) { future.fail(e); }
         }, asyncResult -> {
-            if (asyncResult.succeeded()) { init(startFuture); }
+            if (asyncResult.succeeded()) {
+                monitorEventLoop();
+                init(startFuture);
+            }
             else { startFuture.fail(asyncResult.cause()); }
         });
     }
 
+    /**
+     * Closes the EntityManagerFactory, connection pools, async SQL client and repository worker pool of this
+     * instance's injector, or of the shared one once the last instance stops
+     */
     @Override
     public void stop(Future<Void> stopFuture) throws Exception {
-        stopFuture.complete();
+        if (eventLoopMonitor != null) { eventLoopMonitor.stop(); }
+        if (bootstrap != null) {
+            vertx.executeBlocking(future -> {
+                BounceBootstrap.release(vertx, getClass().getName());
+                future.complete();
+            }, asyncResult -> stopFuture.complete());
+        } else if (injector != null) {
+            vertx.executeBlocking(future -> {
+                BounceBootstrap.close(injector);
+                future.complete();
+            }, asyncResult -> stopFuture.complete());
+        } else { stopFuture.complete(); }
+    }
+
+    /**
+     * Measure this instance's event loop, see {@link EventLoopMonitor}
+     */
+    private void monitorEventLoop() {
+        final JsonObject config = vertx.getOrCreateContext().config();
+        final long interval = config.getLong("metrics.event_loop_interval_ms", DEFAULT_EVENT_LOOP_INTERVAL);
+        if (interval <= 0) { return; }
+        eventLoopMonitor = new EventLoopMonitor(vertx, injector.getInstance(BounceMetrics.class), interval,
+                config.getLong("metrics.blocked_threshold_ms", DEFAULT_BLOCKED_THRESHOLD));
+        eventLoopMonitor.start();
     }
 
     private void init(final Future<Void> startFuture) {
@@ -62,7 +111,9 @@ public class BounceVerticle extends AbstractVerticle {
             final Integer port = config.getInteger("server.port");
             httpServer = vertx.createHttpServer();
             router = Router.router(vertx);
-            Bounce.springify(getClass().getAnnotation(EnableWeb.class).packages(), router, injector);
+            final String[] packages = getClass().getAnnotation(EnableWeb.class).packages();
+            routes = bootstrap != null ? bootstrap.routes(packages) : Bounce.compile(packages, injector);
+            Bounce.springify(routes, router);
             httpServer.requestHandler(router::accept).listen(port != null ? port : 8080);
             startFuture.complete();
         } catch (Exception e) { startFuture.fail(e); }
@@ -79,4 +130,8 @@ public class BounceVerticle extends AbstractVerticle {
     public Router getRouter() {
         return router;
     }
+
+    public RouteTable getRoutes() {
+        return routes;
+    }
 }
@@ -0,0 +1,15 @@
+package com.github.davidrobbo.bounce.vertx.web;
+
+/**
+ * How a paged query computes {@link Page#getTotalElements()}
+ */
+public enum CountMode {
+    /** COUNT query on every request */
+    EXACT,
+    /** COUNT query result reused per query and parameters until it expires */
+    CACHED,
+    /** Row estimate from the database statistics where available (MySQL, PostgreSQL), otherwise exact */
+    ESTIMATED,
+    /** No count, totalElements is null; use hasNext */
+    NONE
+}
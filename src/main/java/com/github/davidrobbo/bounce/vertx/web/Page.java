@@ -8,7 +8,10 @@ public class Page<T> {
     private Integer page;
     private Integer size;
     private String order;
+    private CountMode count;
     private Long totalElements;
+    private Boolean hasNext;
+    private String nextCursor;
 
     public Page() {
     }
@@ -17,6 +20,7 @@ public class Page<T> {
         page = pageable.getPage();
         size = pageable.getSize();
         order = pageable.getOrder();
+        count = pageable.getCount();
     }
 
     public List<T> getContent() {
@@ -51,6 +55,17 @@ public class Page<T> {
         this.order = order;
     }
 
+    public CountMode getCount() {
+        return count;
+    }
+
+    public void setCount(CountMode count) {
+        this.count = count;
+    }
+
+    /**
+     * @return total matching rows, approximate when count is ESTIMATED or CACHED and null when NONE
+     */
     public Long getTotalElements() {
         return totalElements;
     }
@@ -58,4 +73,23 @@ public class Page<T> {
     public void setTotalElements(Long totalElements) {
         this.totalElements = totalElements;
     }
+
+    public Boolean getHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(Boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+
+    /**
+     * @return cursor to pass as Pageable.cursor for the page after this one, null once the last page is reached
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
 }
@@ -4,13 +4,22 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import io.vertx.core.json.Json;
 import org.hibernate.criterion.Order;
 
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class Pageable {
 
+    private static final Pattern SORT_KEY =
+            Pattern.compile("\\s*([A-Za-z_][A-Za-z0-9_]*)\\s*,\\s*(asc|desc)\\s*", Pattern.CASE_INSENSITIVE);
+
     private Integer page;
     private Integer size;
-    // @todo allow for multi sort
+    // sort keys, e.g. name,asc;id,desc or repeated order parameters, resolved against the entity by the repository
     private String order;
+    // keyset continuation, the nextCursor of the previous Page
+    private String cursor;
+    private CountMode count;
 
     public Pageable() {
     }
@@ -39,25 +48,45 @@ public class Pageable {
         this.order = order;
     }
 
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public CountMode getCount() {
+        return count;
+    }
+
+    public void setCount(CountMode count) {
+        this.count = count;
+    }
+
+    /**
+     * @deprecated first sort key only, not checked against the entity; repositories resolve {@link #getOrder()}
+     */
+    @Deprecated
     public Order toCriteriaOrder() {
-        if (order != null) {
-            final String[] split = order.trim().split(",");
-            if (split.length == 2) {
-                return "asc".equals(split[1].toLowerCase()) ? Order.asc(split[0]) :
-                        Order.desc(split[0]);
-            }
-        }
-        return null;
+        final Matcher matcher = firstKey();
+        if (matcher == null) { return null; }
+        return "asc".equalsIgnoreCase(matcher.group(2)) ? Order.asc(matcher.group(1)) : Order.desc(matcher.group(1));
     }
 
+    /**
+     * @deprecated first sort key only, not checked against the entity; repositories resolve {@link #getOrder()}
+     */
+    @Deprecated
     public String toSqlOrder() {
-        if (order != null) {
-            final String[] split = order.trim().split(",");
-            if (split.length == 2) {
-                return " ORDER BY t." + split[0] + " " + split[1];
-            }
-        }
-        return "";
+        final Matcher matcher = firstKey();
+        return matcher == null ? "" : " ORDER BY t." + matcher.group(1) + " " + matcher.group(2);
+    }
+
+    private Matcher firstKey() {
+        if (order == null) { return null; }
+        final Matcher matcher = SORT_KEY.matcher(order.split(";")[0]);
+        return matcher.matches() ? matcher : null;
     }
 
     @Override
@@ -68,6 +97,7 @@ public class Pageable {
     public Pageable defaults () {
         if (page == null) { page = 0; }
         if (size == null) { size = 50; }
+        if (count == null) { count = CountMode.EXACT; }
         return this;
     }
 }
@@ -0,0 +1,15 @@
+package com.github.davidrobbo.bounce.vertx.web.annotations;
+
+import com.github.davidrobbo.bounce.repository.SQLClientFactory;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Binds a non blocking SQLClient for AsyncRepository subclasses, created from the datasource.async config by the
+ * given factory. May be combined with EnableJPARepositories.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+public @interface EnableAsyncRepositories {
+    Class<? extends SQLClientFactory> value() default SQLClientFactory.MySQL.class;
+}
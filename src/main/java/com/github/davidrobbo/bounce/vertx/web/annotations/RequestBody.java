@@ -3,6 +3,14 @@ package com.github.davidrobbo.bounce.vertx.web.annotations;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 
+/**
+ * Decode the request body into the parameter. Only routes declaring a @RequestBody buffer the body.
+ */
 @Retention(RetentionPolicy.RUNTIME)
 public @interface RequestBody {
+
+    /**
+     * Largest body accepted, in bytes; larger requests fail with a 413. Unlimited when negative.
+     */
+    long maxSize() default -1;
 }
@@ -5,4 +5,10 @@ import java.lang.annotation.RetentionPolicy;
 
 @Retention(RetentionPolicy.RUNTIME)
 public @interface RestController {
+
+    /**
+     * Resolve the controller once at mapping time and reuse it for every request. Controllers bound in Guice's
+     * singleton scope (e.g. annotated with @Singleton) are always reused, regardless of this flag.
+     */
+    boolean singleton() default false;
 }
@@ -0,0 +1,19 @@
+package com.github.davidrobbo.bounce.vertx.web.annotations;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Runs a @RequestMapping method and every BaseRepository call it composes in one transaction on a repository worker,
+ * committed when the returned future succeeds and rolled back otherwise, see TransactionTemplate. Requires
+ * EnableJPARepositories.
+ *
+ * The method runs on the worker thread and its repository calls join the transaction through that thread, completing
+ * before they return. It may therefore only compose BaseRepository calls, and its future must be complete when it
+ * returns: timers, HTTP or event bus calls and AsyncRepository calls cannot be waited for. A future that is still
+ * pending is rolled back and the request fails with a 500; only a ReadStream&lt;Buffer&gt; parameter is rejected
+ * at startup, as reading it is never synchronous.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Transactional {
+}
@@ -0,0 +1,21 @@
+package com.github.davidrobbo.bounce.vertx.web.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Wire format of request and response bodies, chosen per request: the Accept header picks the codec a response is
+ * written with and the Content-Type header the one a @RequestBody is read with, see {@link BodyCodecs}.
+ *
+ * A codec is an ObjectMapper over a Jackson format factory, so any Jackson dataformat (MessagePack, Ion, ...) can be
+ * plugged in by listing an implementation in
+ * {@code META-INF/services/com.github.davidrobbo.bounce.vertx.web.codec.BodyCodec}.
+ */
+public interface BodyCodec {
+
+    /**
+     * @return the media type read and written, without parameters
+     */
+    String getContentType();
+
+    ObjectMapper getMapper();
+}
@@ -0,0 +1,203 @@
+package com.github.davidrobbo.bounce.vertx.web.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.DefaultDeserializationContext;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * The available codecs and the content negotiation between them.
+ *
+ * JSON goes through Json.mapper, so its configuration applies as before. Smile and CBOR are binary encodings of the
+ * same data model: smaller bodies and cheaper to parse and write, for service to service traffic. Their mappers are
+ * built from Json.mapper when this class is first used, see {@link #mapper(JsonFactory)}.
+ * Codecs found by ServiceLoader are added after the built-in ones and replace a built-in one of the same content type.
+ */
+public final class BodyCodecs {
+
+    public static final BodyCodec JSON = new BodyCodec() {
+        @Override
+        public String getContentType() {
+            return "application/json";
+        }
+
+        @Override
+        public ObjectMapper getMapper() {
+            return Json.mapper;
+        }
+    };
+    public static final BodyCodec SMILE = of("application/x-jackson-smile", mapper(new SmileFactory()));
+    public static final BodyCodec CBOR = of("application/cbor", mapper(new CBORFactory()));
+
+    private static final Map<String, BodyCodec> CODECS = load();
+    private static final BodyCodec DEFAULT = CODECS.get(JSON.getContentType());
+
+    private BodyCodecs() {
+    }
+
+    public static BodyCodec of(final String contentType, final ObjectMapper mapper) {
+        return new BodyCodec() {
+            @Override
+            public String getContentType() {
+                return contentType;
+            }
+
+            @Override
+            public ObjectMapper getMapper() {
+                return mapper;
+            }
+        };
+    }
+
+    public static List<BodyCodec> all() {
+        return Collections.unmodifiableList(new ArrayList<>(CODECS.values()));
+    }
+
+    /**
+     * @return the codec of a request's Content-Type, JSON when there is none, null when no codec reads it
+     */
+    public static BodyCodec forContentType(final String contentType) {
+        if (contentType == null) { return DEFAULT; }
+        final String type = mediaType(contentType);
+        return type.isEmpty() ? DEFAULT : find(type);
+    }
+
+    /**
+     * The codec of the most preferred acceptable media type, the first listed on equal quality. JSON when there is
+     * no Accept header, it only lists wildcards or no codec writes any of its types.
+     */
+    public static BodyCodec forAccept(final String accept) {
+        if (accept == null) { return DEFAULT; }
+        BodyCodec best = null;
+        double bestQuality = 0;
+        for (final String range : accept.split(",")) {
+            final double quality = quality(range);
+            if (quality <= bestQuality) { continue; }
+            final String type = mediaType(range);
+            final BodyCodec codec = type.equals("*/*") || type.equals("application/*") ? DEFAULT : find(type);
+            if (codec != null) {
+                best = codec;
+                bestQuality = quality;
+            }
+        }
+        return best != null ? best : DEFAULT;
+    }
+
+    /**
+     * ObjectMapper over a binary format sharing the serializers, modules and configuration registered on
+     * Json.mapper by the time it is called, so Vert.x's types and any application module are written the same way.
+     * byte[] is written as native binary rather than base64, and Instant, JsonObject, JsonArray and byte[] are read
+     * back from what is written, which Json.mapper does not register.
+     */
+    public static ObjectMapper mapper(final JsonFactory factory) {
+        final ObjectMapper mapper = new ObjectMapper(factory, null,
+                new DefaultDeserializationContext.Impl(Json.mapper.getDeserializationContext().getFactory()));
+        mapper.setSerializerFactory(Json.mapper.getSerializerFactory());
+        mapper.setConfig(Json.mapper.getSerializationConfig());
+        mapper.setConfig(Json.mapper.getDeserializationConfig());
+        mapper.setSubtypeResolver(Json.mapper.getSubtypeResolver());
+        mapper.setInjectableValues(Json.mapper.getInjectableValues());
+
+        final SimpleModule module = new SimpleModule();
+        module.addSerializer(byte[].class, new JsonSerializer<byte[]>() {
+            @Override
+            public void serialize(final byte[] value, final JsonGenerator generator,
+                                  final SerializerProvider provider) throws IOException {
+                generator.writeBinary(value);
+            }
+        });
+        module.addDeserializer(byte[].class, new JsonDeserializer<byte[]>() {
+            @Override
+            public byte[] deserialize(final JsonParser parser, final DeserializationContext context)
+                    throws IOException {
+                // native binary, or a base64 string as Json.mapper writes it
+                return parser.getCurrentToken() == JsonToken.VALUE_STRING
+                        ? context.getBase64Variant().decode(parser.getText())
+                        : parser.getBinaryValue(context.getBase64Variant());
+            }
+        });
+        module.addDeserializer(Instant.class, new JsonDeserializer<Instant>() {
+            @Override
+            public Instant deserialize(final JsonParser parser, final DeserializationContext context)
+                    throws IOException {
+                try { return Instant.from(DateTimeFormatter.ISO_INSTANT.parse(parser.getText())); }
+                catch (DateTimeException e) {
+                    return (Instant) context.handleWeirdStringValue(Instant.class, parser.getText(), e.getMessage());
+                }
+            }
+        });
+        module.addDeserializer(JsonObject.class, new JsonDeserializer<JsonObject>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public JsonObject deserialize(final JsonParser parser, final DeserializationContext context)
+                    throws IOException {
+                return new JsonObject((Map<String, Object>) context.readValue(parser, Map.class));
+            }
+        });
+        module.addDeserializer(JsonArray.class, new JsonDeserializer<JsonArray>() {
+            @Override
+            public JsonArray deserialize(final JsonParser parser, final DeserializationContext context)
+                    throws IOException {
+                return new JsonArray(context.readValue(parser, List.class));
+            }
+        });
+        return mapper.registerModule(module);
+    }
+
+    private static BodyCodec find(final String type) {
+        final BodyCodec codec = CODECS.get(type);
+        if (codec == null && type.endsWith("+json")) { return DEFAULT; }
+        return codec;
+    }
+
+    private static String mediaType(final String value) {
+        final int parameters = value.indexOf(';');
+        return (parameters < 0 ? value : value.substring(0, parameters)).trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static double quality(final String range) {
+        for (final String parameter : range.split(";")) {
+            final String trimmed = parameter.trim();
+            if (trimmed.startsWith("q=")) {
+                try { return Double.parseDouble(trimmed.substring(2)); }
+                catch (NumberFormatException e) { return 0; }
+            }
+        }
+        return 1;
+    }
+
+    private static Map<String, BodyCodec> load() {
+        final Map<String, BodyCodec> codecs = new LinkedHashMap<>();
+        for (final BodyCodec codec : new BodyCodec[]{JSON, SMILE, CBOR}) {
+            codecs.put(codec.getContentType(), codec);
+        }
+        for (final BodyCodec codec : ServiceLoader.load(BodyCodec.class)) {
+            codecs.put(mediaType(codec.getContentType()), codec);
+        }
+        return codecs;
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.davidrobbo.bounce.vertx.web.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.davidrobbo.bounce.vertx.web.BounceHttpException;
+import com.github.davidrobbo.bounce.vertx.web.codec.BodyCodec;
+import com.github.davidrobbo.bounce.vertx.web.codec.BodyCodecs;
+import io.netty.buffer.ByteBufInputStream;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.Type;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binds a @RequestBody parameter straight from the buffered body. Jackson parses the Netty buffer through a
+ * ByteBufInputStream, so the body is never copied into a String first; the readers for the parameter's full generic
+ * type are built once per route, one per codec, and the request's Content-Type picks one, see BodyCodecs.
+ *
+ * Buffer, byte[] and String parameters receive the body as it is, and JsonObject and JsonArray parameters are read
+ * from the bytes too. An empty body binds null, one in a Content-Type no codec reads fails with a 415 and one that
+ * cannot be decoded with a 400.
+ */
+final class BodyDecoder {
+
+    private BodyDecoder() {
+    }
+
+    /**
+     * @return whether the type is bound without Jackson databinding
+     */
+    static boolean isPassthrough(final Class<?> type) {
+        return type.equals(Buffer.class) || type.equals(byte[].class) || type.equals(String.class) ||
+                type.equals(JsonObject.class) || type.equals(JsonArray.class);
+    }
+
+    static ParameterResolver resolver(final Parameter parameter) {
+        final Class<?> type = parameter.getType();
+        if (type.equals(Buffer.class)) {
+            return RoutingContext::getBody;
+        } else if (type.equals(byte[].class)) {
+            return context -> context.getBody() == null ? null : context.getBody().getBytes();
+        } else if (type.equals(String.class)) {
+            return RoutingContext::getBodyAsString;
+        } else if (type.equals(JsonObject.class)) {
+            final Map<BodyCodec, ObjectReader> readers = readers(Map.class);
+            return context -> {
+                final Map<String, Object> map = read(context, readers);
+                return map == null ? null : new JsonObject(map);
+            };
+        } else if (type.equals(JsonArray.class)) {
+            final Map<BodyCodec, ObjectReader> readers = readers(List.class);
+            return context -> {
+                final List<Object> list = read(context, readers);
+                return list == null ? null : new JsonArray(list);
+            };
+        }
+        final Map<BodyCodec, ObjectReader> readers = readers(parameter.getParameterizedType());
+        return context -> read(context, readers);
+    }
+
+    private static Map<BodyCodec, ObjectReader> readers(final Type type) {
+        final Map<BodyCodec, ObjectReader> readers = new IdentityHashMap<>();
+        for (final BodyCodec codec : BodyCodecs.all()) {
+            final ObjectMapper mapper = codec.getMapper();
+            readers.put(codec, mapper.readerFor(mapper.constructType(type)));
+        }
+        return readers;
+    }
+
+    private static <T> T read(final RoutingContext context, final Map<BodyCodec, ObjectReader> readers)
+            throws BounceHttpException {
+        final Buffer body = context.getBody();
+        if (body == null || body.length() == 0) { return null; }
+        final BodyCodec codec = BodyCodecs.forContentType(context.request().getHeader("Content-Type"));
+        if (codec == null) { throw new BounceHttpException(415, "Request Content-Type is not supported"); }
+        try (InputStream input = new ByteBufInputStream(body.getByteBuf())) {
+            return readers.get(codec).readValue(input);
+        } catch (IOException e) {
+            throw new BounceHttpException(400, "Request Body is invalid");
+        }
+    }
+}
@@ -1,26 +1,24 @@
 package com.github.davidrobbo.bounce.vertx.web.util;
 
 import com.github.davidrobbo.bounce.guice.BounceConfigModule;
+import com.github.davidrobbo.bounce.processor.BounceIndexProcessor;
+import com.github.davidrobbo.bounce.repository.TransactionTemplate;
 import com.github.davidrobbo.bounce.vertx.web.annotations.*;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
-import com.github.davidrobbo.bounce.vertx.web.BounceHttpException;
-import com.github.davidrobbo.bounce.vertx.web.Pageable;
+import com.google.inject.Key;
 import com.github.davidrobbo.bounce.vertx.web.RouteInterceptor;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
-import io.vertx.core.MultiMap;
 import io.vertx.core.Vertx;
 import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.http.HttpServerResponse;
-import io.vertx.core.json.Json;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.handler.BodyHandler;
 import org.reflections.Reflections;
 import org.reflections.scanners.ResourcesScanner;
 import org.reflections.scanners.SubTypesScanner;
-import org.reflections.util.ClasspathHelper;
 import org.reflections.util.ConfigurationBuilder;
 import org.reflections.util.FilterBuilder;
 import org.slf4j.Logger;
@@ -28,9 +26,10 @@ import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
-import java.lang.reflect.Parameter;
+import java.net.URL;
 import java.util.*;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -96,14 +95,44 @@ public class Bounce {
         }
     }
 
-    private static void setup(final String[] packagesToScan, final Router router, final Injector injector) {
-        router.route().handler(BodyHandler.create());
+    /**
+     * Mount a previously compiled RouteTable, allowing several Routers to share a single scan and compilation
+     *
+     * @param routes
+     * @param router
+     */
+    public static void springify(final RouteTable routes, final Router router) {
         router.route().order(-999999).handler(start());
-        initInterceptors(packagesToScan, router, injector);
-        initRequestPaths(packagesToScan, router, injector);
+        routes.getRoutes().stream()
+                .filter(RoutePlan::isStream)
+                .forEach(route -> router.route(route.getPath()).method(route.getMethod()).order(-999999)
+                        .handler(pause()));
+        initInterceptors(routes.getComponents(), router, routes.getInjector());
+        routes.getRoutes().forEach(route -> initRoute(route, router));
         router.route().last().handler(end());
     }
 
+    /**
+     * Scan and compile the given packages without mounting them on a Router
+     *
+     * @param packagesToScan
+     * @param injector
+     * @return
+     * @throws Exception
+     */
+    public static RouteTable compile(final String[] packagesToScan, final Injector injector) throws Exception {
+        if (packagesToScan == null || packagesToScan.length == 0) {
+            throw new Exception("Cannot Bounce.compile without a package list declaration!");
+        }
+        final Set<Class> components = Collections.unmodifiableSet(components(packagesToScan));
+        return new RouteTable(injector, components, compileRoutes(components, injector));
+    }
+
+    private static void setup(final String[] packagesToScan, final Router router,
+                              final Injector injector) throws Exception {
+        springify(compile(packagesToScan, injector), router);
+    }
+
     private static Handler<RoutingContext> start() {
         return ctx -> {
             HttpResponse.setRouteHandled(ctx, false);
@@ -111,6 +140,19 @@ public class Bounce {
         };
     }
 
+    /**
+     * Holds back the body of a ReadStream&lt;Buffer&gt; route until the controller sets its handler, see
+     * {@link RequestBodyStream}, or the response ends without it being read
+     */
+    private static Handler<RoutingContext> pause() {
+        return ctx -> {
+            final HttpServerRequest request = ctx.request();
+            request.pause();
+            ctx.addBodyEndHandler(v -> request.resume());
+            ctx.next();
+        };
+    }
+
     private static Handler<RoutingContext> end() {
         return ctx -> {
             if (!ctx.response().ended()){
@@ -122,36 +164,98 @@ public class Bounce {
     }
 
     @SuppressWarnings("unchecked")
-    private static void initInterceptors(final String[] toScan, final Router router, final Injector injector) {
-        Stream.of(toScan)
-                .map(str -> entities(str, isRouteInterceptor()))
-                .flatMap(Collection::stream)
+    private static void initInterceptors(final Set<Class> components, final Router router, final Injector injector) {
+        components.stream()
+                .filter(isRouteInterceptor())
                 .forEach(clazz -> initInterceptor(clazz, router, injector));
     }
 
-    private static void initRequestPaths(final String[] toScan, final Router router, final Injector injector) {
-        Stream.of(toScan)
-                .map(str -> entities(str, isRestController()))
-                .flatMap(Collection::stream)
+    private static List<RoutePlan> compileRoutes(final Set<Class> components,
+                                                 final Injector injector) throws Exception {
+        final Set<Method> methods = components.stream()
+                .filter(isRestController())
                 .map(clazz -> methods(clazz, isValidRequestMapping()))
                 .flatMap(Collection::stream)
-                .forEach(method -> initRoute(method, router, injector));
+                .collect(toSet());
+        final Map<Class<?>, Supplier<Object>> controllers = new HashMap<>();
+        final TransactionTemplate transactions = injector.getExistingBinding(Key.get(TransactionTemplate.class)) != null
+                ? injector.getInstance(TransactionTemplate.class) : null;
+        final List<RoutePlan> routes = new ArrayList<>();
+        final List<String> errors = new ArrayList<>();
+        for (final Method method : methods) {
+            try {
+                final Supplier<Object> controller = controllers.computeIfAbsent(method.getDeclaringClass(),
+                        clazz -> RouteCompiler.controller(clazz, injector));
+                routes.add(RouteCompiler.compile(method, controller, transactions));
+            }
+            catch (Exception e) { errors.add(e.getMessage()); }
+        }
+        if (!errors.isEmpty()) { throw new Exception(String.join("\n", errors)); }
+        return Collections.unmodifiableList(routes);
     }
 
-    private static Set<Class> entities(final String packageName, final Predicate<Class> predicate) {
+    /**
+     * Candidate controllers and interceptors are read from the compile time index (see BounceIndexProcessor).
+     * Jars/directories holding a scanned package without an index of their own are scanned with Reflections, so a
+     * component compiled without the processor is still found next to indexed ones. Classes of indexed
+     * jars/directories the index does not name are checked too, and a component among them is logged and mapped.
+     */
+    private static Set<Class> components(final String[] packagesToScan) throws Exception {
+        final ClassLoader classLoader = Thread.currentThread().getContextClassLoader() != null ?
+                Thread.currentThread().getContextClassLoader() : Bounce.class.getClassLoader();
+        final Set<String> indexed = RouteIndex.load(classLoader);
+        final Set<Class> components = new HashSet<>();
+        final List<String> toScan = new ArrayList<>();
+        final Set<URL> roots = new LinkedHashSet<>();
+        for (final String packageName : packagesToScan) {
+            for (final String name : indexed) {
+                if (name.startsWith(packageName + ".")) { components.add(Class.forName(name, true, classLoader)); }
+            }
+            for (final String name : RouteIndex.unlisted(classLoader, packageName, indexed)) {
+                final Class<?> clazz = unlistedComponent(name, classLoader);
+                if (clazz != null) {
+                    log.warn(name + " is missing from " + BounceIndexProcessor.INDEX + ", e.g. a fat jar built " +
+                            "without merging every jar's index; mapping it anyway");
+                    components.add(Class.forName(name, true, classLoader));
+                }
+            }
+            final List<URL> unindexed = RouteIndex.unindexed(classLoader, packageName);
+            if (!unindexed.isEmpty()) {
+                toScan.add(packageName);
+                roots.addAll(unindexed);
+            }
+        }
+        if (!toScan.isEmpty()) {
+            log.info("No Bounce index in " + roots + " for " + toScan + ", scanning");
+            components.addAll(entities(toScan, roots, classLoader));
+        }
+        return components;
+    }
+
+    /**
+     * @return the class when it is a controller or interceptor, loaded without initializing it, otherwise null
+     */
+    private static Class<?> unlistedComponent(final String name, final ClassLoader classLoader) {
+        try {
+            final Class<?> clazz = Class.forName(name, false, classLoader);
+            return isRouteInterceptor().or(isRestController()).test(clazz) ? clazz : null;
+        } catch (ClassNotFoundException | LinkageError e) { return null; }
+    }
 
-        List<ClassLoader> classLoadersList = new LinkedList<>();
-        classLoadersList.add(ClasspathHelper.contextClassLoader());
-        classLoadersList.add(ClasspathHelper.staticClassLoader());
+    private static Set<Class> entities(final List<String> packageNames, final Set<URL> roots,
+                                       final ClassLoader classLoader) {
 
+        final FilterBuilder filter = new FilterBuilder();
+        packageNames.forEach(packageName -> filter.include(FilterBuilder.prefix(packageName)));
         Reflections reflections = new Reflections(new ConfigurationBuilder()
                 .setScanners(new SubTypesScanner(false), new ResourcesScanner())
-                .setUrls(ClasspathHelper.forClassLoader(classLoadersList.toArray(new ClassLoader[0])))
-                .filterInputsBy(new FilterBuilder().include(FilterBuilder.prefix(packageName))));
+                .setUrls(roots)
+                .addClassLoader(classLoader)
+                .filterInputsBy(filter));
 
         return reflections.getSubTypesOf(Object.class)
                 .stream()
-                .filter(predicate != null ? predicate : p -> true)
+                .filter(isRouteInterceptor().or(isRestController()))
                 .collect(toSet());
     }
 
@@ -181,79 +285,42 @@ public class Bounce {
         injector.getInstance(clazz).configure(router);
     }
 
-    private static void initRoute(final Method method, final Router router, final Injector injector) {
-        final Class parent = method.getDeclaringClass();
-        final String prefix = parent.isAnnotationPresent(RequestMapping.class) ?
-                ((RequestMapping)parent.getAnnotation(RequestMapping.class)).value() : "";
-        final RequestMapping annotation = method.getAnnotation(RequestMapping.class);
-        log.info("Mapping [" + annotation.method().toString() + "] " + prefix + annotation.value());
-        router.route(prefix + annotation.value())
-                .method(annotation.method())
-                .order(annotation.order())
-                .handler(context -> defaultHandler(context, method, injector));
+    /**
+     * Routes declaring a @RequestBody are preceded by a BodyHandler route of the same path, method and order, which
+     * the Router keeps ahead of the route by insertion order. Every other request body is never buffered; those of
+     * ReadStream&lt;Buffer&gt; routes are paused first thing, see {@link #pause()}.
+     */
+    private static void initRoute(final RoutePlan route, final Router router) {
+        log.info("Mapping [" + route.getMethod().toString() + "] " + route.getPath());
+        final RouteInvoker invoker = route.getInvoker();
+        if (route.hasBody()) {
+            final BodyHandler bodyHandler = BodyHandler.create().setBodyLimit(route.getBodyLimit());
+            router.route(route.getPath())
+                    .method(route.getMethod())
+                    .order(route.getOrder())
+                    .handler(context -> {
+                        if (Boolean.TRUE.equals(context.get("__route-matched"))) { context.next(); }
+                        else {
+                            bodyHandler.handle(context);
+                            // a ReadStream route of the same path may have paused the request
+                            context.request().resume();
+                        }
+                    });
+        }
+        router.route(route.getPath())
+                .method(route.getMethod())
+                .order(route.getOrder())
+                .handler(context -> defaultHandler(context, invoker));
     }
 
-    private static void defaultHandler(final RoutingContext context, final Method method, final Injector injector) {
+    private static void defaultHandler(final RoutingContext context, final RouteInvoker invoker) {
         try {
-            if (!method.getReturnType().equals(Future.class)) {
-                throw new Exception("Method's annotated with @RequestMapping must return a Future");
-            } else if (Boolean.TRUE.equals(context.get("__route-matched"))) {
+            if (Boolean.TRUE.equals(context.get("__route-matched"))) {
                 context.next();
             } else {
-                HttpResponse.send(context, (Future) method.invoke(injector.getInstance(method.getDeclaringClass()),
-                        invocationParameters(context, method)));
+                HttpResponse.send(context, invoker.invoke(context));
             }
         } catch (Exception e) { HttpResponse.send(context, Future.failedFuture(e)); }
     }
 
-    private static Object[] invocationParameters(final RoutingContext context, final Method method) throws Exception {
-        final List<Object> params = Stream.of(method.getParameters())
-                .map(parameter -> invocationParameter(context, parameter))
-                .collect(Collectors.toList());
-        final BounceHttpException e = (BounceHttpException) params.stream()
-                .filter(obj -> obj.getClass().isAssignableFrom(BounceHttpException.class))
-                .findFirst()
-                .orElse(null);
-        if (e != null) { throw e; }
-        return params.toArray();
-
-    }
-
-    private static Object invocationParameter(final RoutingContext context, final Parameter parameter) {
-        String value = null;
-        try {
-            if (parameter.getType().equals(RoutingContext.class)) {
-                return context;
-            } else if (parameter.getType().equals(HttpServerRequest.class)) {
-                return context.request();
-            } else if (parameter.getType().equals(HttpServerResponse.class)) {
-                return context.response();
-            } else if (parameter.getType().equals(Pageable.class)) {
-                final Pageable pageable = Json.decodeValue(Json.encode(toMap(context.queryParams())), Pageable.class);
-                return pageable == null ? new Pageable().defaults() : pageable.defaults();
-            } else if (parameter.isAnnotationPresent(PathVariable.class)) {
-                value = context.request().getParam(parameter.getAnnotation(PathVariable.class).value());
-            } else if (parameter.isAnnotationPresent(RequestBody.class)) {
-                value = context.getBodyAsString();
-            } else if (parameter.isAnnotationPresent(RequestParam.class)) {
-                final RequestParam requestParam = parameter.getAnnotation(RequestParam.class);
-                final String param = requestParam.value();
-                if ("".equals(param)) { value = Json.encode(toMap(context.queryParams())); }
-                else {
-                    if (requestParam.required() && !context.queryParams().contains(param)) {
-                        throw new BounceHttpException(400, "Request Parameter " + param + " is required");
-                    }
-                    value = context.queryParams().get(param);
-                }
-            }
-            return Json.decodeValue(value, parameter.getType());
-        } catch (Exception e) { return e.getClass().isAssignableFrom(BounceHttpException.class) ? e : value; }
-    }
-
-    private static Map<String, Object> toMap(final MultiMap params) {
-        final Map<String, Object> map =  new HashMap<>();
-        params.forEach(entry -> map.put(entry.getKey(), entry.getValue()));
-        return map;
-    }
-
 }
@@ -2,25 +2,111 @@ package com.github.davidrobbo.bounce.vertx.web.util;
 
 import com.github.davidrobbo.bounce.vertx.web.BounceHttpResponse;
 import com.github.davidrobbo.bounce.vertx.web.BounceHttpException;
+import com.github.davidrobbo.bounce.vertx.web.codec.BodyCodec;
+import com.github.davidrobbo.bounce.vertx.web.codec.BodyCodecs;
+import com.fasterxml.jackson.core.JsonGenerator;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
-import io.vertx.core.json.Json;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.streams.ReadStream;
 import io.vertx.ext.web.RoutingContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.Collections;
 
 public class HttpResponse {
 
+    private static final Logger log = LoggerFactory.getLogger(HttpResponse.class);
+    private static final String NDJSON = "application/x-ndjson";
+
+    /**
+     * Write the body with the codec the client's Accept header prefers, JSON by default
+     */
     private static void send(final RoutingContext context, final int statusCode, final Object body) {
+        final BodyCodec codec = BodyCodecs.forAccept(context.request().getHeader("Accept"));
         context.response()
-                .putHeader("Content-Type", "application/json")
+                .putHeader("Content-Type", codec.getContentType())
+                .putHeader("Vary", "Accept")
                 .setStatusCode(statusCode);
-        if (body != null) {
-            context.response()
-                    .setChunked(true)
-                    .write(Json.encode(body));
+        if (body == null) {
+            complete(context);
+            return;
+        }
+        final ResponseOutputStream output = new ResponseOutputStream(context.response());
+        try {
+            codec.getMapper().writeValue(output, body);
+        } catch (IOException e) {
+            log.error("Unable to encode response body", e);
+            if (output.started()) { context.response().close(); }
+            else if (statusCode != 500) { send(context, 500, Collections.singletonMap("message", "An Error Occurred")); }
+            else { complete(context); }
+            return;
         }
+        output.end(v -> complete(context));
+    }
+
+    /**
+     * Pipe a ReadStream to the client as an array in the codec its Accept header prefers, or as newline delimited JSON
+     * when it accepts application/x-ndjson. The source is paused whenever the response cannot keep up.
+     */
+    @SuppressWarnings("unchecked")
+    private static void stream(final RoutingContext context, final ReadStream<Object> stream) {
+        final String accept = context.request().getHeader("Accept");
+        final boolean ndjson = accept != null && accept.contains(NDJSON);
+        final BodyCodec codec = ndjson ? BodyCodecs.JSON : BodyCodecs.forAccept(accept);
+        final HttpServerResponse response = context.response()
+                .putHeader("Content-Type", ndjson ? NDJSON : codec.getContentType())
+                .putHeader("Vary", "Accept")
+                .setStatusCode(200);
+        final ResponseOutputStream output = new ResponseOutputStream(response);
+        final JsonGenerator generator;
+        try {
+            generator = codec.getMapper().getFactory().createGenerator(output);
+            if (ndjson) { generator.setRootValueSeparator(null); }
+            else { generator.writeStartArray(); }
+        } catch (IOException e) {
+            send(context, Future.failedFuture(e));
+            return;
+        }
+        response.closeHandler(v -> { if (stream instanceof AutoCloseable) { closeQuietly((AutoCloseable) stream); } });
+        stream.exceptionHandler(e -> {
+            log.error("Unable to stream response body", e);
+            if (output.started()) { response.close(); }
+            else { send(context, 500, Collections.singletonMap("message", "An Error Occurred")); }
+        });
+        stream.endHandler(v -> {
+            try {
+                if (!ndjson) { generator.writeEndArray(); }
+                generator.close();
+                output.end(done -> complete(context));
+            } catch (IOException e) { response.close(); }
+        });
+        stream.handler(item -> {
+            try {
+                codec.getMapper().writeValue(generator, item);
+                if (ndjson) { generator.writeRaw('\n'); }
+            } catch (IOException e) {
+                log.error("Unable to encode streamed item", e);
+                if (stream instanceof AutoCloseable) { closeQuietly((AutoCloseable) stream); }
+                response.close();
+                return;
+            }
+            if (output.writeQueueFull()) {
+                stream.pause();
+                output.drainHandler(done -> stream.resume());
+            }
+        });
+    }
+
+    private static void closeQuietly(final AutoCloseable closeable) {
+        try { closeable.close(); }
+        catch (Exception e) { log.warn("Unable to close stream", e); }
+    }
+
+    private static void complete(final RoutingContext context) {
         setRouteHandled(context, true);
         context.next();
     }
@@ -37,6 +123,8 @@ public class HttpResponse {
                 if (rawResult.getClass().isAssignableFrom(BounceHttpResponse.class)) {
                     send(context, ((BounceHttpResponse) rawResult).getStatusCode(),
                             ((BounceHttpResponse) rawResult).getBody());
+                } else if (rawResult instanceof ReadStream) {
+                    stream(context, (ReadStream<Object>) rawResult);
                 } else if (rawResult.getClass().isAssignableFrom(Void.class) && !context.response().ended()) {
                     context.next();
                 } else { send(context, 200, rawResult); }
@@ -0,0 +1,13 @@
+package com.github.davidrobbo.bounce.vertx.web.util;
+
+import io.vertx.ext.web.RoutingContext;
+
+/**
+ * Resolves a single @RequestMapping method argument from the current request. Resolvers are built once per
+ * parameter when the route is mapped so no annotation lookups happen per request.
+ */
+@FunctionalInterface
+interface ParameterResolver {
+
+    Object resolve(final RoutingContext context) throws Exception;
+}
@@ -0,0 +1,106 @@
+package com.github.davidrobbo.bounce.vertx.web.util;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.github.davidrobbo.bounce.vertx.web.BounceHttpException;
+import io.vertx.core.MultiMap;
+import io.vertx.core.json.Json;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Binds query parameters straight onto a bean (e.g. Pageable) without an intermediate JSON document. Properties
+ * are discovered once through Jackson's bean introspection, so @JsonProperty names and @JsonIgnore are honoured,
+ * and each property gets its {@link ValueConverter} up front. Unknown parameters are ignored.
+ */
+final class QueryBinder<T> {
+
+    private final Class<T> type;
+    private final MethodHandle constructor;
+    private final Map<String, Property> properties;
+
+    private QueryBinder(final Class<T> type, final MethodHandle constructor, final Map<String, Property> properties) {
+        this.type = type;
+        this.constructor = constructor;
+        this.properties = properties;
+    }
+
+    static <T> QueryBinder<T> of(final Class<T> type) throws Exception {
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        final Constructor<T> defaultConstructor = type.getDeclaredConstructor();
+        defaultConstructor.setAccessible(true);
+        final MethodHandle constructor = lookup.unreflectConstructor(defaultConstructor)
+                .asType(MethodType.methodType(Object.class));
+        final BeanDescription description = Json.mapper.getDeserializationConfig()
+                .introspect(Json.mapper.constructType(type));
+        final Map<String, Property> properties = new HashMap<>();
+        for (final BeanPropertyDefinition definition : description.findProperties()) {
+            final MethodHandle setter;
+            final Type propertyType;
+            if (definition.hasSetter()) {
+                final Method method = definition.getSetter().getAnnotated();
+                method.setAccessible(true);
+                setter = lookup.unreflect(method);
+                propertyType = method.getGenericParameterTypes()[0];
+            } else if (definition.hasField()) {
+                final Field field = definition.getField().getAnnotated();
+                field.setAccessible(true);
+                setter = lookup.unreflectSetter(field);
+                propertyType = field.getGenericType();
+            } else { continue; }
+            final boolean primitive = setter.type().parameterType(1).isPrimitive();
+            properties.put(definition.getName(), new Property(definition.getName(),
+                    setter.asType(MethodType.methodType(void.class, Object.class, Object.class)),
+                    ValueConverters.forType(propertyType), primitive));
+        }
+        return new QueryBinder<>(type, constructor, properties);
+    }
+
+    T bind(final MultiMap params) throws Exception {
+        final Object target;
+        try { target = constructor.invokeExact(); }
+        catch (Exception | Error e) { throw e; }
+        catch (Throwable t) { throw new Exception(t); }
+        for (final Map.Entry<String, String> param : params) {
+            final Property property = properties.get(param.getKey());
+            if (property != null) { property.set(target, param.getValue()); }
+        }
+        return type.cast(target);
+    }
+
+    private static final class Property {
+
+        private final String name;
+        private final MethodHandle setter;
+        private final ValueConverter converter;
+        private final boolean primitive;
+
+        private Property(final String name, final MethodHandle setter, final ValueConverter converter,
+                         final boolean primitive) {
+            this.name = name;
+            this.setter = setter;
+            this.converter = converter;
+            this.primitive = primitive;
+        }
+
+        private void set(final Object target, final String value) throws Exception {
+            final Object converted = converter.convert(value);
+            if (converted == ValueConverters.INVALID) {
+                throw new BounceHttpException(400, "Request Parameter " + name + " is invalid");
+            } else if (converted == null && primitive) {
+                return;
+            }
+            try { setter.invokeExact(target, converted); }
+            catch (Exception | Error e) { throw e; }
+            catch (Throwable t) { throw new Exception(t); }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.davidrobbo.bounce.vertx.web.util;
+
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.streams.ReadStream;
+
+/**
+ * The body of a ReadStream&lt;Buffer&gt; parameter. Bounce pauses the request as soon as such a route matches, so no
+ * chunk is dropped while interceptors and the controller run; setting a handler resumes it on the next tick of the
+ * request's context, leaving the controller time to set its end and exception handlers, unless it paused the stream
+ * itself by then.
+ */
+final class RequestBodyStream implements ReadStream<Buffer> {
+
+    private final HttpServerRequest request;
+    private final Context context;
+    private volatile boolean paused;
+
+    RequestBodyStream(final HttpServerRequest request, final Context context) {
+        this.request = request;
+        this.context = context;
+    }
+
+    @Override
+    public ReadStream<Buffer> exceptionHandler(final Handler<Throwable> handler) {
+        request.exceptionHandler(handler);
+        return this;
+    }
+
+    @Override
+    public ReadStream<Buffer> handler(final Handler<Buffer> handler) {
+        request.handler(handler);
+        if (handler != null) { context.runOnContext(v -> { if (!paused) { request.resume(); } }); }
+        return this;
+    }
+
+    @Override
+    public ReadStream<Buffer> pause() {
+        paused = true;
+        request.pause();
+        return this;
+    }
+
+    @Override
+    public ReadStream<Buffer> resume() {
+        paused = false;
+        request.resume();
+        return this;
+    }
+
+    @Override
+    public ReadStream<Buffer> endHandler(final Handler<Void> handler) {
+        request.endHandler(handler);
+        return this;
+    }
+}
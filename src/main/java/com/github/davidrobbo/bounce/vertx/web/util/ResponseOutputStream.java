@@ -0,0 +1,123 @@
+package com.github.davidrobbo.bounce.vertx.web.util;
+
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerResponse;
+
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * OutputStream that serializers write into directly. Bytes are collected into fixed size chunk Buffers which are
+ * handed to the response as soon as they fill, so the body never exists as a single String or byte[]. Chunks are
+ * held back while the response's write queue is full and written from its drain handler.
+ *
+ * A body that fits in the first chunk is sent with a Content-Length header instead of chunked encoding.
+ *
+ * Vert.x wraps Netty ByteBufs handed to Buffer.buffer(ByteBuf) as unreleasable, so chunks are plain heap Buffers
+ * rather than pooled ByteBufs, which would never be returned to the pool.
+ */
+final class ResponseOutputStream extends OutputStream {
+
+    static final int CHUNK_SIZE = 8192;
+
+    private final HttpServerResponse response;
+    private final Deque<Buffer> pending = new ArrayDeque<>();
+    private Buffer chunk = Buffer.buffer(CHUNK_SIZE);
+    private boolean chunked;
+    private Handler<Void> endHandler;
+
+    ResponseOutputStream(final HttpServerResponse response) {
+        this.response = response;
+    }
+
+    @Override
+    public void write(final int b) {
+        chunk.appendByte((byte) b);
+        if (chunk.length() >= CHUNK_SIZE) { flushChunk(); }
+    }
+
+    @Override
+    public void write(final byte[] bytes, int offset, int length) {
+        while (length > 0) {
+            final int count = Math.min(length, CHUNK_SIZE - chunk.length());
+            chunk.appendBytes(bytes, offset, count);
+            offset += count;
+            length -= count;
+            if (chunk.length() >= CHUNK_SIZE) { flushChunk(); }
+        }
+    }
+
+    /**
+     * Serializers close their target when done; the response is only completed by {@link #end(Handler)}
+     */
+    @Override
+    public void close() {
+    }
+
+    /**
+     * @return true once any part of the body has been handed to the response
+     */
+    boolean started() {
+        return chunked;
+    }
+
+    /**
+     * @return true while chunks are held back or the response's write queue is full
+     */
+    boolean writeQueueFull() {
+        return !pending.isEmpty() || response.writeQueueFull();
+    }
+
+    /**
+     * Call the handler once held back chunks are written and the response's write queue has drained
+     */
+    void drainHandler(final Handler<Void> handler) {
+        drain(handler);
+    }
+
+    /**
+     * Write whatever is left and call the handler once every chunk has been handed to the response
+     */
+    void end(final Handler<Void> handler) {
+        endHandler = handler;
+        if (!chunked) {
+            if (chunk.length() > 0) {
+                response.putHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(chunk.length()));
+                response.write(chunk);
+            }
+            complete();
+        } else {
+            if (chunk.length() > 0) { pending.add(chunk); }
+            drain(v -> complete());
+        }
+    }
+
+    private void flushChunk() {
+        if (!chunked) {
+            response.setChunked(true);
+            chunked = true;
+        }
+        if (pending.isEmpty() && !response.writeQueueFull()) { response.write(chunk); }
+        else { pending.add(chunk); }
+        chunk = Buffer.buffer(CHUNK_SIZE);
+    }
+
+    private void drain(final Handler<Void> handler) {
+        while (!pending.isEmpty() && !response.writeQueueFull()) { response.write(pending.poll()); }
+        if (pending.isEmpty() && !response.writeQueueFull()) {
+            response.drainHandler(null);
+            handler.handle(null);
+        } else {
+            response.drainHandler(v -> drain(handler));
+        }
+    }
+
+    private void complete() {
+        final Handler<Void> handler = endHandler;
+        endHandler = null;
+        if (handler != null) { handler.handle(null); }
+    }
+}
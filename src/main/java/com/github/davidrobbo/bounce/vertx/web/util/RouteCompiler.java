@@ -0,0 +1,231 @@
+package com.github.davidrobbo.bounce.vertx.web.util;
+
+import com.github.davidrobbo.bounce.repository.TransactionTemplate;
+import com.github.davidrobbo.bounce.vertx.web.BounceHttpException;
+import com.github.davidrobbo.bounce.vertx.web.Pageable;
+import com.github.davidrobbo.bounce.vertx.web.annotations.PathVariable;
+import com.github.davidrobbo.bounce.vertx.web.annotations.RequestBody;
+import com.github.davidrobbo.bounce.vertx.web.annotations.RequestMapping;
+import com.github.davidrobbo.bounce.vertx.web.annotations.RequestParam;
+import com.github.davidrobbo.bounce.vertx.web.annotations.RestController;
+import com.github.davidrobbo.bounce.vertx.web.annotations.Transactional;
+import com.fasterxml.jackson.databind.JavaType;
+import com.google.inject.Binding;
+import com.google.inject.Injector;
+import com.google.inject.Provider;
+import com.google.inject.Scopes;
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.Json;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.ext.web.RoutingContext;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Validates @RequestMapping methods once at startup and compiles them into immutable {@link RoutePlan}s so that
+ * nothing needs checking per request.
+ */
+final class RouteCompiler {
+
+    private static final Pattern PATH_VARIABLE = Pattern.compile(":([A-Za-z0-9_]+)");
+
+    private RouteCompiler() {
+    }
+
+    /**
+     * @param transactions template for @Transactional methods, null when no EntityManagerFactory is bound
+     */
+    static RoutePlan compile(final Method method, final Supplier<Object> controller,
+                             final TransactionTemplate transactions) throws Exception {
+        final Class<?> parent = method.getDeclaringClass();
+        final String prefix = parent.isAnnotationPresent(RequestMapping.class) ?
+                parent.getAnnotation(RequestMapping.class).value() : "";
+        final RequestMapping annotation = method.getAnnotation(RequestMapping.class);
+        final String path = prefix + annotation.value();
+        final String name = parent.getSimpleName() + "." + method.getName();
+
+        final List<String> errors = new ArrayList<>();
+        if (!Future.class.isAssignableFrom(method.getReturnType())) {
+            errors.add("Method's annotated with @RequestMapping must return a Future");
+        }
+        final List<String> pathVariables = pathVariables(path);
+        final List<ParameterResolver> resolvers = new ArrayList<>();
+        int bodies = 0;
+        int streams = 0;
+        long bodyLimit = -1;
+        for (final Parameter parameter : method.getParameters()) {
+            final String error = validate(parameter, pathVariables);
+            if (error != null) { errors.add(error); }
+            if (parameter.isAnnotationPresent(RequestBody.class)) {
+                bodies++;
+                bodyLimit = parameter.getAnnotation(RequestBody.class).maxSize();
+            }
+            if (parameter.getType().equals(ReadStream.class)) { streams++; }
+            try { resolvers.add(parameterResolver(parameter)); }
+            catch (Exception e) {
+                errors.add("Parameter " + parameter.getName() + " of type " + parameter.getType().getSimpleName() +
+                        " cannot be bound: " + e);
+            }
+        }
+        if (bodies > 1) { errors.add("At most one parameter may be annotated with @RequestBody"); }
+        if (streams > 1 || (streams > 0 && bodies > 0)) {
+            errors.add("The body may be read by a single @RequestBody or ReadStream<Buffer> parameter");
+        }
+        final boolean transactional = method.isAnnotationPresent(Transactional.class);
+        if (transactional && transactions == null) {
+            errors.add("@Transactional requires @EnableJPARepositories (no EntityManagerFactory is bound)");
+        }
+        if (transactional && streams > 0) {
+            errors.add("@Transactional methods must complete before they return, so cannot read a ReadStream<Buffer>");
+        }
+        if (!errors.isEmpty()) {
+            throw new Exception("Invalid @RequestMapping " + name + " [" + path + "]: " + String.join("; ", errors));
+        }
+        final RouteInvoker invoker = new RouteInvoker(method, resolvers, controller,
+                transactional ? transactions : null);
+        return new RoutePlan(name, path, annotation.method(), annotation.order(), invoker, bodies > 0, bodyLimit,
+                streams > 0);
+    }
+
+    /**
+     * Singleton controllers (@RestController(singleton = true) or a Guice singleton binding) are instantiated
+     * here, once, and shared by every route they declare. Anything else keeps its Guice scope but is looked up
+     * through a pre-resolved Provider rather than the Injector.
+     */
+    static Supplier<Object> controller(final Class<?> clazz, final Injector injector) {
+        final Binding<?> binding = injector.getBinding(clazz);
+        final RestController restController = clazz.getAnnotation(RestController.class);
+        if ((restController != null && restController.singleton()) || Scopes.isSingleton(binding)) {
+            final Object instance = binding.getProvider().get();
+            return () -> instance;
+        }
+        final Provider<?> provider = binding.getProvider();
+        return provider::get;
+    }
+
+    private static String validate(final Parameter parameter, final List<String> pathVariables) {
+        final Class<?> type = parameter.getType();
+        final int annotations = (parameter.isAnnotationPresent(PathVariable.class) ? 1 : 0) +
+                (parameter.isAnnotationPresent(RequestParam.class) ? 1 : 0) +
+                (parameter.isAnnotationPresent(RequestBody.class) ? 1 : 0);
+        if (isContextType(type)) {
+            return annotations == 0 ? null : "Parameter " + parameter.getName() + " of type " +
+                    type.getSimpleName() + " must not be annotated";
+        } else if (type.equals(ReadStream.class)) {
+            if (annotations > 0) {
+                return "Parameter " + parameter.getName() + " of type ReadStream must not be annotated";
+            }
+            final Type streamed = parameter.getParameterizedType() instanceof ParameterizedType ?
+                    ((ParameterizedType) parameter.getParameterizedType()).getActualTypeArguments()[0] : null;
+            return Buffer.class.equals(streamed) ? null :
+                    "Parameter " + parameter.getName() + " must be a ReadStream<Buffer>";
+        } else if (annotations == 0) {
+            return "Parameter " + parameter.getName() + " of type " + type.getSimpleName() +
+                    " requires one of @PathVariable, @RequestParam or @RequestBody";
+        } else if (annotations > 1) {
+            return "Parameter " + parameter.getName() +
+                    " may only declare one of @PathVariable, @RequestParam or @RequestBody";
+        } else if (parameter.isAnnotationPresent(PathVariable.class)) {
+            final String name = parameter.getAnnotation(PathVariable.class).value();
+            if (!pathVariables.contains(name)) {
+                return "@PathVariable(\"" + name + "\") does not match any path variable " + pathVariables;
+            }
+        }
+        if (parameter.isAnnotationPresent(RequestBody.class) && BodyDecoder.isPassthrough(type)) { return null; }
+        final JavaType javaType = Json.mapper.constructType(parameter.getParameterizedType());
+        if (!Json.mapper.canDeserialize(javaType)) {
+            return "Parameter " + parameter.getName() + " of type " + type.getSimpleName() + " cannot be decoded";
+        }
+        return null;
+    }
+
+    private static boolean isContextType(final Class<?> type) {
+        return type.equals(RoutingContext.class) || type.equals(HttpServerRequest.class) ||
+                type.equals(HttpServerResponse.class) || type.equals(Pageable.class);
+    }
+
+    private static List<String> pathVariables(final String path) {
+        final List<String> names = new ArrayList<>();
+        final Matcher matcher = PATH_VARIABLE.matcher(path);
+        while (matcher.find()) { names.add(matcher.group(1)); }
+        return names;
+    }
+
+    private static ParameterResolver parameterResolver(final Parameter parameter) throws Exception {
+        final Class<?> type = parameter.getType();
+        if (type.equals(RoutingContext.class)) {
+            return context -> context;
+        } else if (type.equals(HttpServerRequest.class)) {
+            return RoutingContext::request;
+        } else if (type.equals(HttpServerResponse.class)) {
+            return RoutingContext::response;
+        } else if (type.equals(ReadStream.class)) {
+            // the request itself, its body is never buffered
+            return context -> new RequestBodyStream(context.request(), context.vertx().getOrCreateContext());
+        } else if (type.equals(Pageable.class)) {
+            final QueryBinder<Pageable> binder = QueryBinder.of(Pageable.class);
+            return context -> {
+                final Pageable pageable = binder.bind(context.queryParams()).defaults();
+                final List<String> orders = context.queryParams().getAll("order");
+                if (orders.size() > 1) { pageable.setOrder(String.join(";", orders)); }
+                return pageable;
+            };
+        } else if (parameter.isAnnotationPresent(PathVariable.class)) {
+            final String name = parameter.getAnnotation(PathVariable.class).value();
+            final ValueConverter converter = ValueConverters.forType(parameter.getParameterizedType());
+            final String label = "Path Variable " + name;
+            return context -> convert(context.request().getParam(name), converter, type.isPrimitive(), label);
+        } else if (parameter.isAnnotationPresent(RequestBody.class)) {
+            return BodyDecoder.resolver(parameter);
+        } else {
+            final RequestParam requestParam = parameter.getAnnotation(RequestParam.class);
+            final String param = requestParam.value();
+            if ("".equals(param)) { return queryResolver(type); }
+            final boolean required = requestParam.required() || type.isPrimitive();
+            final ValueConverter converter = ValueConverters.forType(parameter.getParameterizedType());
+            final String label = "Request Parameter " + param;
+            return context -> {
+                final String value = context.queryParams().get(param);
+                if (required && value == null) { throw new BounceHttpException(400, label + " is required"); }
+                return convert(value, converter, type.isPrimitive(), label);
+            };
+        }
+    }
+
+    private static Object convert(final String value, final ValueConverter converter, final boolean primitive,
+                                  final String label) throws BounceHttpException {
+        final Object converted = value == null ? null : converter.convert(value);
+        if (converted == ValueConverters.INVALID || (converted == null && primitive)) {
+            throw new BounceHttpException(400, label + " is invalid");
+        }
+        return converted;
+    }
+
+    /**
+     * Whole query @RequestParam: either a Map of every parameter or a bean bound property by property
+     */
+    private static ParameterResolver queryResolver(final Class<?> type) throws Exception {
+        if (type.isAssignableFrom(HashMap.class)) {
+            return context -> {
+                final Map<String, Object> map = new HashMap<>();
+                context.queryParams().forEach(entry -> map.put(entry.getKey(), entry.getValue()));
+                return map;
+            };
+        }
+        final QueryBinder<?> binder = QueryBinder.of(type);
+        return context -> binder.bind(context.queryParams());
+    }
+}
@@ -0,0 +1,157 @@
+package com.github.davidrobbo.bounce.vertx.web.util;
+
+import com.github.davidrobbo.bounce.processor.BounceIndexProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.JarURLConnection;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * Reads the component index written by {@link BounceIndexProcessor} from every jar/directory on the classpath, and
+ * finds the jars/directories contributing to a package that carry no index, whose components must be scanned, and
+ * the classes an index leaves out.
+ */
+final class RouteIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(RouteIndex.class);
+
+    private RouteIndex() {
+    }
+
+    /**
+     * @return indexed class names, empty if no index is present on the classpath
+     */
+    static Set<String> load(final ClassLoader classLoader) {
+        final Set<String> names = new LinkedHashSet<>();
+        try {
+            final Enumeration<URL> indexes = classLoader.getResources(BounceIndexProcessor.INDEX);
+            while (indexes.hasMoreElements()) {
+                final URL url = indexes.nextElement();
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(),
+                        StandardCharsets.UTF_8))) {
+                    reader.lines()
+                            .map(String::trim)
+                            .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                            .forEach(names::add);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Unable to read " + BounceIndexProcessor.INDEX + ", falling back to classpath scanning", e);
+            names.clear();
+        }
+        return names;
+    }
+
+    /**
+     * Jars are only found when they hold directory entries for the package, as most build tools write them
+     *
+     * @return roots of the jars/directories holding the package but no index
+     */
+    static List<URL> unindexed(final ClassLoader classLoader, final String packageName) {
+        final List<URL> roots = new ArrayList<>();
+        packages(classLoader, packageName).forEach((location, root) -> {
+            if (!exists(indexOf(root))) { roots.add(root); }
+        });
+        return roots;
+    }
+
+    /**
+     * Classes of the package in jars/directories that carry an index but are not named by it. Their components
+     * were dropped from the index, e.g. by a fat jar built without merging every jar's index, and must be looked up.
+     *
+     * @return names of the package's classes, nested ones included, missing from the indexed names
+     */
+    static Set<String> unlisted(final ClassLoader classLoader, final String packageName, final Set<String> indexed) {
+        final String path = packageName.replace('.', '/') + "/";
+        final Set<String> names = new LinkedHashSet<>();
+        packages(classLoader, packageName).forEach((location, root) -> {
+            if (!exists(indexOf(root))) { return; }
+            try {
+                for (final String file : classFiles(location, path)) {
+                    final String name = file.substring(0, file.length() - ".class".length()).replace('/', '.');
+                    if (!indexed.contains(name) && !name.endsWith("package-info")) { names.add(name); }
+                }
+            } catch (IOException | URISyntaxException e) {
+                log.warn("Unable to list the classes of " + location, e);
+            }
+        });
+        return names;
+    }
+
+    /**
+     * @return the package's locations on the classpath, each mapped to the root of its jar/directory
+     */
+    private static Map<URL, URL> packages(final ClassLoader classLoader, final String packageName) {
+        final String path = packageName.replace('.', '/');
+        final Map<URL, URL> locations = new LinkedHashMap<>();
+        try {
+            final Enumeration<URL> packages = classLoader.getResources(path);
+            while (packages.hasMoreElements()) {
+                final URL location = packages.nextElement();
+                final String url = location.toExternalForm();
+                locations.put(location, new URL(url.substring(0, url.lastIndexOf(path))));
+            }
+        } catch (IOException e) {
+            log.warn("Unable to locate package " + packageName + " on the classpath", e);
+        }
+        return locations;
+    }
+
+    /**
+     * @return paths relative to the root of the class files under the package location
+     */
+    private static List<String> classFiles(final URL location, final String path)
+            throws IOException, URISyntaxException {
+        final List<String> files = new ArrayList<>();
+        if ("file".equals(location.getProtocol())) {
+            final Path directory = Paths.get(location.toURI());
+            try (Stream<Path> walk = Files.walk(directory)) {
+                walk.filter(file -> file.toString().endsWith(".class"))
+                        .forEach(file -> files.add(path + directory.relativize(file).toString()
+                                .replace(File.separatorChar, '/')));
+            }
+        } else if (location.openConnection() instanceof JarURLConnection) {
+            final JarURLConnection connection = (JarURLConnection) location.openConnection();
+            connection.setUseCaches(false);
+            try (JarFile jar = connection.getJarFile()) {
+                jar.stream()
+                        .map(JarEntry::getName)
+                        .filter(name -> name.startsWith(path) && name.endsWith(".class"))
+                        .forEach(files::add);
+            }
+        }
+        return files;
+    }
+
+    private static URL indexOf(final URL root) {
+        try { return new URL(root, BounceIndexProcessor.INDEX); }
+        catch (MalformedURLException e) { throw new IllegalStateException(e); }
+    }
+
+    private static boolean exists(final URL url) {
+        try (InputStream ignored = url.openStream()) { return true; }
+        catch (IOException e) { return false; }
+    }
+}
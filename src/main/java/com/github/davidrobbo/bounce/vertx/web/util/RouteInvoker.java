@@ -0,0 +1,59 @@
+package com.github.davidrobbo.bounce.vertx.web.util;
+
+import com.github.davidrobbo.bounce.repository.TransactionTemplate;
+import io.vertx.core.Future;
+import io.vertx.ext.web.RoutingContext;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Pre-compiled invocation of a single @RequestMapping method. The target method is unreflected into a
+ * MethodHandle of shape (Object, Object[])Object once at mapping time, so the request path only runs the
+ * parameter resolvers and an exact handle invocation. A @Transactional method is invoked through the
+ * TransactionTemplate, after its parameters are resolved on the event loop.
+ */
+class RouteInvoker {
+
+    private final MethodHandle handle;
+    private final ParameterResolver[] resolvers;
+    private final Supplier<Object> controller;
+    private final TransactionTemplate transactions;
+
+    /**
+     * @param transactions template the method runs through, null unless it is @Transactional
+     */
+    RouteInvoker(final Method method, final List<ParameterResolver> resolvers, final Supplier<Object> controller,
+                 final TransactionTemplate transactions) throws IllegalAccessException {
+        method.setAccessible(true);
+        final MethodHandle unreflected = MethodHandles.lookup().unreflect(method);
+        this.handle = unreflected
+                .asType(unreflected.type().generic())
+                .asSpreader(Object[].class, method.getParameterCount());
+        this.resolvers = resolvers.toArray(new ParameterResolver[0]);
+        this.controller = controller;
+        this.transactions = transactions;
+    }
+
+    Future invoke(final RoutingContext context) throws Exception {
+        final Object[] args = new Object[resolvers.length];
+        for (int i = 0; i < resolvers.length; i++) { args[i] = resolvers[i].resolve(context); }
+        final Object target = controller.get();
+        if (transactions == null) { return call(target, args); }
+        return transactions.execute(() -> {
+            try { return call(target, args); }
+            catch (Exception e) { return Future.failedFuture(e); }
+        });
+    }
+
+    private Future call(final Object target, final Object[] args) throws Exception {
+        try {
+            final Object result = handle.invokeExact(target, args);
+            return (Future) result;
+        } catch (Exception | Error e) { throw e; }
+        catch (Throwable t) { throw new Exception(t); }
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.davidrobbo.bounce.vertx.web.util;
+
+import io.vertx.core.http.HttpMethod;
+
+/**
+ * Immutable, validated description of a single @RequestMapping route produced by {@link RouteCompiler}
+ */
+final class RoutePlan {
+
+    private final String name;
+    private final String path;
+    private final HttpMethod method;
+    private final int order;
+    private final RouteInvoker invoker;
+    private final boolean body;
+    private final long bodyLimit;
+    private final boolean stream;
+
+    RoutePlan(final String name, final String path, final HttpMethod method, final int order,
+              final RouteInvoker invoker, final boolean body, final long bodyLimit, final boolean stream) {
+        this.name = name;
+        this.path = path;
+        this.method = method;
+        this.order = order;
+        this.invoker = invoker;
+        this.body = body;
+        this.bodyLimit = bodyLimit;
+        this.stream = stream;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getPath() {
+        return path;
+    }
+
+    HttpMethod getMethod() {
+        return method;
+    }
+
+    int getOrder() {
+        return order;
+    }
+
+    RouteInvoker getInvoker() {
+        return invoker;
+    }
+
+    /**
+     * @return whether the route declares a @RequestBody, so its body must be buffered before it is invoked
+     */
+    boolean hasBody() {
+        return body;
+    }
+
+    /**
+     * @return the @RequestBody maxSize, unlimited when negative
+     */
+    long getBodyLimit() {
+        return bodyLimit;
+    }
+
+    /**
+     * @return whether the route declares a ReadStream&lt;Buffer&gt;, so its request must be paused until it is read
+     */
+    boolean isStream() {
+        return stream;
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.davidrobbo.bounce.vertx.web.util;
+
+import com.google.inject.Injector;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Result of scanning and compiling a set of packages against an Injector. A RouteTable holds no Router state and
+ * can be mounted onto any number of Routers, e.g. one per BounceVerticle instance.
+ */
+public final class RouteTable {
+
+    private final Injector injector;
+    private final Set<Class> components;
+    private final List<RoutePlan> routes;
+
+    RouteTable(final Injector injector, final Set<Class> components, final List<RoutePlan> routes) {
+        this.injector = injector;
+        this.components = components;
+        this.routes = routes;
+    }
+
+    Injector getInjector() {
+        return injector;
+    }
+
+    Set<Class> getComponents() {
+        return components;
+    }
+
+    List<RoutePlan> getRoutes() {
+        return routes;
+    }
+}
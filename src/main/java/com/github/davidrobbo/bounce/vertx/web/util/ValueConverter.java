@@ -0,0 +1,14 @@
+package com.github.davidrobbo.bounce.vertx.web.util;
+
+/**
+ * Converts a single raw request value (path variable, query parameter) to its target type. Converters are chosen
+ * once per parameter or property at startup, see {@link ValueConverters}.
+ */
+@FunctionalInterface
+interface ValueConverter {
+
+    /**
+     * @return the converted value, or {@link ValueConverters#INVALID} when the value cannot be converted
+     */
+    Object convert(final String value);
+}
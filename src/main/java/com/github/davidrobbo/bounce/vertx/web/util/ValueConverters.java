@@ -0,0 +1,159 @@
+package com.github.davidrobbo.bounce.vertx.web.util;
+
+import com.fasterxml.jackson.databind.JavaType;
+import io.vertx.core.json.Json;
+
+import java.lang.reflect.Type;
+import java.text.ParsePosition;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalQuery;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Dedicated converters for primitives, their boxed types, String, UUID, enums and java.time types. Conversion
+ * failures are reported with {@link #INVALID} rather than an exception; anything else falls back to Jackson.
+ */
+final class ValueConverters {
+
+    /**
+     * Returned by a {@link ValueConverter} when a value cannot be converted
+     */
+    static final Object INVALID = new Object();
+
+    private static final Pattern DECIMAL = Pattern.compile("[+-]?(\\d+\\.?\\d*|\\.\\d+)([eE][+-]?\\d+)?");
+    private static final Pattern UUID_FORMAT = Pattern.compile(
+            "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+    private static final Map<Class<?>, ValueConverter> CONVERTERS = new HashMap<>();
+
+    static {
+        CONVERTERS.put(String.class, value -> value);
+        CONVERTERS.put(Object.class, value -> value);
+        register(Long.class, long.class, value -> parseLong(value, Long.MIN_VALUE, Long.MAX_VALUE));
+        register(Integer.class, int.class, value -> {
+            final Object parsed = parseLong(value, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            return parsed == INVALID ? INVALID : Integer.valueOf(((Long) parsed).intValue());
+        });
+        register(Short.class, short.class, value -> {
+            final Object parsed = parseLong(value, Short.MIN_VALUE, Short.MAX_VALUE);
+            return parsed == INVALID ? INVALID : Short.valueOf(((Long) parsed).shortValue());
+        });
+        register(Byte.class, byte.class, value -> {
+            final Object parsed = parseLong(value, Byte.MIN_VALUE, Byte.MAX_VALUE);
+            return parsed == INVALID ? INVALID : Byte.valueOf(((Long) parsed).byteValue());
+        });
+        register(Double.class, double.class, value ->
+                DECIMAL.matcher(value).matches() ? Double.valueOf(value) : INVALID);
+        register(Float.class, float.class, value ->
+                DECIMAL.matcher(value).matches() ? Float.valueOf(value) : INVALID);
+        register(Boolean.class, boolean.class, value ->
+                "true".equalsIgnoreCase(value) ? Boolean.TRUE : "false".equalsIgnoreCase(value) ? Boolean.FALSE : INVALID);
+        register(Character.class, char.class, value -> value.length() == 1 ? value.charAt(0) : INVALID);
+        register(UUID.class, null, value -> UUID_FORMAT.matcher(value).matches() ? UUID.fromString(value) : INVALID);
+        register(LocalDate.class, null, temporal(DateTimeFormatter.ISO_LOCAL_DATE, LocalDate::from));
+        register(LocalDateTime.class, null, temporal(DateTimeFormatter.ISO_LOCAL_DATE_TIME, LocalDateTime::from));
+        register(LocalTime.class, null, temporal(DateTimeFormatter.ISO_LOCAL_TIME, LocalTime::from));
+        register(OffsetDateTime.class, null, temporal(DateTimeFormatter.ISO_OFFSET_DATE_TIME, OffsetDateTime::from));
+        register(ZonedDateTime.class, null, temporal(DateTimeFormatter.ISO_ZONED_DATE_TIME, ZonedDateTime::from));
+        register(Instant.class, null, temporal(DateTimeFormatter.ISO_INSTANT, Instant::from));
+        register(Duration.class, null, value -> {
+            try { return Duration.parse(value); }
+            catch (DateTimeParseException e) { return INVALID; }
+        });
+    }
+
+    private ValueConverters() {
+    }
+
+    /**
+     * @return a converter for the given type, falling back to Jackson for types without a dedicated converter
+     */
+    @SuppressWarnings("unchecked")
+    static ValueConverter forType(final Type type) {
+        if (type instanceof Class && ((Class<?>) type).isEnum()) {
+            return enumConverter((Class<? extends Enum>) type);
+        }
+        final ValueConverter converter = type instanceof Class ? CONVERTERS.get(type) : null;
+        if (converter != null) { return converter; }
+        final JavaType javaType = Json.mapper.constructType(type);
+        return value -> {
+            try { return Json.mapper.convertValue(value, javaType); }
+            catch (IllegalArgumentException e) { return INVALID; }
+        };
+    }
+
+    private static <E extends Enum<E>> ValueConverter enumConverter(final Class<E> type) {
+        final Map<String, E> constants = new HashMap<>();
+        for (final E constant : type.getEnumConstants()) {
+            constants.put(constant.name(), constant);
+            constants.putIfAbsent(constant.name().toUpperCase(Locale.ROOT), constant);
+        }
+        return value -> {
+            if (value.isEmpty()) { return null; }
+            final E constant = constants.get(value);
+            if (constant != null) { return constant; }
+            final E upper = constants.get(value.toUpperCase(Locale.ROOT));
+            return upper != null ? upper : INVALID;
+        };
+    }
+
+    /**
+     * Empty values convert to null for every non String type; surrounding whitespace is ignored
+     */
+    private static void register(final Class<?> boxed, final Class<?> primitive, final ValueConverter parser) {
+        final ValueConverter converter = value -> {
+            final String trimmed = value.trim();
+            return trimmed.isEmpty() ? null : parser.convert(trimmed);
+        };
+        CONVERTERS.put(boxed, converter);
+        if (primitive != null) { CONVERTERS.put(primitive, converter); }
+    }
+
+    private static ValueConverter temporal(final DateTimeFormatter formatter, final TemporalQuery<?> query) {
+        return value -> {
+            final ParsePosition position = new ParsePosition(0);
+            formatter.parseUnresolved(value, position);
+            if (position.getErrorIndex() >= 0 || position.getIndex() != value.length()) { return INVALID; }
+            try { return formatter.parse(value, query); }
+            catch (DateTimeException e) { return INVALID; }
+        };
+    }
+
+    /**
+     * Parses a decimal integer without throwing, accumulating negatively so Long.MIN_VALUE is representable
+     */
+    private static Object parseLong(final String value, final long min, final long max) {
+        final int length = value.length();
+        int i = 0;
+        boolean negative = false;
+        final char first = value.charAt(0);
+        if (first == '-' || first == '+') {
+            if (length == 1) { return INVALID; }
+            negative = first == '-';
+            i = 1;
+        }
+        long result = 0;
+        for (; i < length; i++) {
+            final int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || result < (Long.MIN_VALUE + digit) / 10) { return INVALID; }
+            result = result * 10 - digit;
+        }
+        if (!negative) {
+            if (result == Long.MIN_VALUE) { return INVALID; }
+            result = -result;
+        }
+        return result < min || result > max ? INVALID : Long.valueOf(result);
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.davidrobbo.bounce.broken;
+
+import com.github.davidrobbo.bounce.repository.BaseRepository;
+import com.github.davidrobbo.bounce.vertx.BounceVerticleTest;
+import com.github.davidrobbo.bounce.vertx.web.annotations.RequestMapping;
+import com.github.davidrobbo.bounce.vertx.web.annotations.RestController;
+import com.google.inject.Inject;
+import io.vertx.core.Future;
+
+import java.util.List;
+
+@RestController(singleton = true)
+@RequestMapping("/broken")
+public class BrokenQueryController {
+
+    private final BrokenQueryRepository repository;
+
+    @Inject
+    public BrokenQueryController(final BrokenQueryRepository repository) {
+        this.repository = repository;
+    }
+
+    @RequestMapping("/items")
+    public Future<List<BounceVerticleTest.Item>> items() {
+        return repository.findAll();
+    }
+
+    public static class BrokenQueryRepository extends BaseRepository<BounceVerticleTest.Item, Integer> {
+        public BrokenQueryRepository() {}
+
+        @Inject
+        void registerQueries() {
+            registerQuery("Item.broken", "SELECT t FROM NoSuchEntity t");
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.github.davidrobbo.bounce.index;
+
+import com.github.davidrobbo.bounce.vertx.web.annotations.RequestMapping;
+import com.github.davidrobbo.bounce.vertx.web.annotations.RestController;
+import io.vertx.core.Future;
+
+@RestController
+@RequestMapping("/indexed")
+public class IndexedController {
+
+    @RequestMapping("/name")
+    public Future<String> name() {
+        return Future.succeededFuture(getClass().getSimpleName());
+    }
+}
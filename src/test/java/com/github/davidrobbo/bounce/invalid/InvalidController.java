@@ -0,0 +1,37 @@
+package com.github.davidrobbo.bounce.invalid;
+
+import com.github.davidrobbo.bounce.vertx.web.annotations.PathVariable;
+import com.github.davidrobbo.bounce.vertx.web.annotations.RequestMapping;
+import com.github.davidrobbo.bounce.vertx.web.annotations.RestController;
+import com.github.davidrobbo.bounce.vertx.web.annotations.Transactional;
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.streams.ReadStream;
+
+@RestController
+@RequestMapping("/invalid")
+public class InvalidController {
+
+    @RequestMapping("/not-a-future")
+    public String notAFuture() {
+        return "INVALID";
+    }
+
+    @RequestMapping("/:id")
+    public Future<String> unknownPathVariable(@PathVariable("name") final String name) {
+        return Future.succeededFuture(name);
+    }
+
+    @Transactional
+    @RequestMapping("/transactional")
+    public Future<String> withoutRepositories() {
+        return Future.succeededFuture("INVALID");
+    }
+
+    @Transactional
+    @RequestMapping(value = "/transactional/upload", method = HttpMethod.POST)
+    public Future<String> streamedInTransaction(final ReadStream<Buffer> body) {
+        return Future.succeededFuture("INVALID");
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.davidrobbo.bounce.metrics;
+
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(VertxUnitRunner.class)
+public class EventLoopMonitorTest {
+
+    private Vertx vertx;
+    private BounceMetrics metrics;
+    private EventLoopMonitor monitor;
+
+    @Before
+    public void setup() {
+        vertx = Vertx.vertx();
+        metrics = new BounceMetrics();
+        monitor = new EventLoopMonitor(vertx, metrics, 10, 100);
+    }
+
+    @After
+    public void tearDown(final TestContext context) {
+        monitor.stop();
+        vertx.close(context.asyncAssertSuccess());
+    }
+
+    @Test
+    public void testNothingRecordedBeforeFirstCheck(final TestContext context) {
+        final Async async = context.async();
+        vertx.runOnContext(v -> {
+            monitor.start();
+            context.assertNull(metrics.snapshot().getLong("eventloop.max_lag_ms"));
+            vertx.setTimer(50, id -> {
+                context.assertNotNull(metrics.snapshot().getLong("eventloop.max_lag_ms"));
+                async.complete();
+            });
+        });
+    }
+
+    /**
+     * Blocking the monitored loop for longer than the threshold is counted once the timer gets to fire
+     */
+    @Test
+    public void testBlockedLoopIsCounted(final TestContext context) {
+        final Async async = context.async();
+        vertx.runOnContext(v -> {
+            monitor.start();
+            vertx.setTimer(30, id -> {
+                final long blocked = metrics.count("eventloop.blocked");
+                sleep(300);
+                vertx.setTimer(50, id2 -> {
+                    context.assertTrue(metrics.count("eventloop.blocked") > blocked);
+                    context.assertTrue(metrics.count("eventloop.blocked_ms") >= 200);
+                    context.assertTrue(metrics.snapshot().getLong("eventloop.max_lag_ms") >= 200);
+                    async.complete();
+                });
+            });
+        });
+    }
+
+    private static void sleep(final long millis) {
+        try { Thread.sleep(millis); }
+        catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.davidrobbo.bounce.repository;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CountQueryTest {
+
+    @Test
+    public void testSelectClauseCutAtTopLevelFrom() {
+        Assert.assertEquals("SELECT COUNT(*) FROM Item t WHERE t.name IN (SELECT s.name FROM Item s)",
+                CountQuery.of("SELECT t FROM Item t WHERE t.name IN (SELECT s.name FROM Item s)"));
+        Assert.assertEquals("SELECT COUNT(*) FROM Item t",
+                CountQuery.of("SELECT t, (SELECT COUNT(s) FROM Item s) FROM Item t"));
+        Assert.assertEquals("SELECT COUNT(*) FROM Item t WHERE t.name = 'from here order by name'",
+                CountQuery.of("SELECT t FROM Item t WHERE t.name = 'from here order by name'"));
+        Assert.assertEquals("SELECT COUNT(*) from Item t", CountQuery.of("  select t from Item t "));
+    }
+
+    @Test
+    public void testOrderByDropped() {
+        Assert.assertEquals("SELECT COUNT(*) FROM Item t WHERE t.category = :category",
+                CountQuery.of("SELECT t FROM Item t WHERE t.category = :category ORDER BY t.name DESC, t.id"));
+        Assert.assertEquals("SELECT COUNT(*) FROM Item t WHERE t.order = 1",
+                CountQuery.of("SELECT t FROM Item t WHERE t.order = 1 order  by t.id"));
+        Assert.assertEquals("SELECT COUNT(*) FROM Item t WHERE t.name IN (SELECT s.name FROM Item s ORDER BY s.id)",
+                CountQuery.of("SELECT t FROM Item t WHERE t.name IN (SELECT s.name FROM Item s ORDER BY s.id)"));
+    }
+
+    @Test
+    public void testFetchJoinsBecomeJoins() {
+        Assert.assertEquals("SELECT COUNT(*) FROM Foo t JOIN t.bar b LEFT JOIN t.tags",
+                CountQuery.of("SELECT t FROM Foo t JOIN FETCH t.bar b LEFT JOIN fetch t.tags"));
+    }
+
+    @Test
+    public void testDistinctCountsDistinct() {
+        Assert.assertEquals("SELECT COUNT(DISTINCT t.category) FROM Item t",
+                CountQuery.of("SELECT DISTINCT t.category FROM Item t ORDER BY t.category"));
+        Assert.assertEquals("SELECT COUNT(distinct t) FROM Foo t JOIN t.bar b",
+                CountQuery.of("select distinct t FROM Foo t join fetch t.bar b"));
+    }
+
+    @Test
+    public void testOrdered() {
+        Assert.assertTrue(CountQuery.ordered("SELECT t FROM Item t order by t.name"));
+        Assert.assertFalse(CountQuery.ordered("SELECT t FROM Item t WHERE t.name IN (SELECT s.name FROM Item s ORDER BY s.id)"));
+        Assert.assertFalse(CountQuery.ordered("SELECT t FROM Item t WHERE t.name = 'order by name'"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoFromRejected() {
+        CountQuery.of("SELECT 1");
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.davidrobbo.bounce.repository;
+
+import com.github.davidrobbo.bounce.vertx.web.BounceHttpException;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(VertxUnitRunner.class)
+public class RepositoryExecutorTest {
+
+    private Vertx vertx;
+    private RepositoryExecutor executor;
+
+    @Before
+    public void setup() {
+        vertx = Vertx.vertx();
+        executor = new RepositoryExecutor(vertx, "bounce-test-repository", 1, 1);
+    }
+
+    @After
+    public void tearDown(final TestContext context) {
+        executor.close();
+        vertx.close(context.asyncAssertSuccess());
+    }
+
+    /**
+     * One task running and one waiting saturate a pool of one with a queue depth of one
+     */
+    @Test
+    public void testSaturatedPoolRejectsFast(final TestContext context) {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final Async admitted = context.async(3);
+        vertx.runOnContext(v -> {
+            executor.<Void>execute(future -> {
+                await(blocked);
+                future.complete();
+            }, context.asyncAssertSuccess(r -> admitted.countDown()));
+            executor.<Void>execute(future -> future.complete(), context.asyncAssertSuccess(r -> admitted.countDown()));
+            context.assertEquals(2, executor.getInFlight());
+
+            final long start = System.nanoTime();
+            executor.<Void>execute(future -> context.fail("Rejected task must not run"), context.asyncAssertFailure(e -> {
+                context.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 100);
+                context.assertTrue(e instanceof BounceHttpException);
+                context.assertEquals(503, ((BounceHttpException) e).getStatusCode());
+            }));
+            context.assertEquals(2, executor.getInFlight());
+
+            executor.<Void>executeOrdered(future -> future.complete(),
+                    context.asyncAssertSuccess(r -> admitted.countDown()));
+            context.assertEquals(3, executor.getInFlight());
+            blocked.countDown();
+        });
+        admitted.await(5000);
+        context.assertEquals(0, executor.getInFlight());
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try { latch.await(5, TimeUnit.SECONDS); }
+        catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+    }
+}
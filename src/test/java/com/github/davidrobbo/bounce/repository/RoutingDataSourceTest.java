@@ -0,0 +1,144 @@
+package com.github.davidrobbo.bounce.repository;
+
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Every database has a single row naming it, so a connection tells which one it came from
+ */
+public class RoutingDataSourceTest {
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+    private static final String LAG_QUERY = "SELECT lag FROM node";
+
+    private final List<RoutingDataSource> routings = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        routings.forEach(RoutingDataSource::close);
+    }
+
+    @Test
+    public void testReadsUseReplicaWritesUsePrimary() throws Exception {
+        final JDBCDataSource primary = database("primary", 0);
+        final JDBCDataSource replica = database("replica", 0);
+        final RoutingDataSource routing = routing(null, primary, replica);
+        Assert.assertEquals(1, routing.getHealthyReplicas());
+        Assert.assertEquals("replica", read(routing));
+        Assert.assertEquals("primary", node(routing));
+        try (Connection connection = routing.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("UPDATE node SET lag = 1");
+        }
+        Assert.assertEquals(1, lag(primary));
+        Assert.assertEquals(0, lag(replica));
+    }
+
+    @Test
+    public void testReplicasRoundRobin() throws Exception {
+        final RoutingDataSource routing = routing(null, database("primary", 0), database("replica-0", 0),
+                database("replica-1", 0));
+        Assert.assertEquals("replica-0", read(routing));
+        Assert.assertEquals("replica-1", read(routing));
+        Assert.assertEquals("replica-0", read(routing));
+    }
+
+    @Test
+    public void testLaggingReplicaOutOfRotation() throws Exception {
+        final RoutingDataSource routing = routing(LAG_QUERY, database("primary", 0), database("replica-0", 60),
+                database("replica-1", 10));
+        Assert.assertEquals(1, routing.getHealthyReplicas());
+        Assert.assertEquals("replica-1", read(routing));
+        Assert.assertEquals("replica-1", read(routing));
+    }
+
+    @Test
+    public void testFailingReplicaOutOfRotation() throws Exception {
+        final JDBCDataSource failing = database("replica-0", 0);
+        final RoutingDataSource routing = routing(null, database("primary", 0), failing, database("replica-1", 0));
+        Assert.assertEquals(2, routing.getHealthyReplicas());
+        shutdown(failing);
+        Assert.assertEquals("replica-1", read(routing));
+        Assert.assertEquals(1, routing.getHealthyReplicas());
+        Assert.assertEquals("replica-1", read(routing));
+    }
+
+    @Test
+    public void testFallbackToPrimary() throws Exception {
+        final JDBCDataSource unreachable = database("replica-0", 0);
+        shutdown(unreachable);
+        final RoutingDataSource down = routing(null, database("primary", 0), unreachable);
+        Assert.assertEquals(0, down.getHealthyReplicas());
+        Assert.assertEquals("primary", read(down));
+
+        final JDBCDataSource failing = database("replica-0", 0);
+        final RoutingDataSource failed = routing(null, database("primary", 0), failing);
+        Assert.assertEquals(1, failed.getHealthyReplicas());
+        shutdown(failing);
+        Assert.assertEquals("primary", read(failed));
+        Assert.assertEquals(0, failed.getHealthyReplicas());
+    }
+
+    private RoutingDataSource routing(final String lagQuery, final DataSource primary, final DataSource... replicas) {
+        final RoutingDataSource routing = new RoutingDataSource(primary, Arrays.asList(replicas), lagQuery, 10, 60000);
+        routings.add(routing);
+        return routing;
+    }
+
+    /**
+     * In memory database holding a single row with its name and replication lag in seconds
+     */
+    private static JDBCDataSource database(final String name, final int lag) throws SQLException {
+        final String url = "jdbc:hsqldb:mem:routing-" + DATABASES.incrementAndGet();
+        final JDBCDataSource dataSource = new JDBCDataSource();
+        dataSource.setUrl(url);
+        dataSource.setUser("SA");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE node (name VARCHAR(32), lag INTEGER)");
+            statement.execute("INSERT INTO node VALUES ('" + name + "', " + lag + ")");
+        }
+        // connecting after a SHUTDOWN fails rather than creating an empty database
+        dataSource.setUrl(url + ";ifexists=true");
+        return dataSource;
+    }
+
+    private static void shutdown(final DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+    }
+
+    private static String read(final RoutingDataSource routing) {
+        final AtomicReference<String> node = new AtomicReference<>();
+        RoutingDataSource.reading(() -> node.set(node(routing)));
+        return node.get();
+    }
+
+    private static String node(final DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT name FROM node")) {
+            result.next();
+            return result.getString(1);
+        } catch (SQLException e) { throw new IllegalStateException(e); }
+    }
+
+    private static int lag(final DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(LAG_QUERY)) {
+            result.next();
+            return result.getInt(1);
+        }
+    }
+}
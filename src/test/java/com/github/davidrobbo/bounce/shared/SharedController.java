@@ -0,0 +1,15 @@
+package com.github.davidrobbo.bounce.shared;
+
+import com.github.davidrobbo.bounce.vertx.web.annotations.RequestMapping;
+import com.github.davidrobbo.bounce.vertx.web.annotations.RestController;
+import io.vertx.core.Future;
+
+@RestController
+@RequestMapping("/shared")
+public class SharedController {
+
+    @RequestMapping("/ping")
+    public Future<String> ping() {
+        return Future.succeededFuture("pong");
+    }
+}
@@ -0,0 +1,119 @@
+package com.github.davidrobbo.bounce.vertx;
+
+import com.github.davidrobbo.bounce.repository.RoutingDataSource;
+import com.github.davidrobbo.bounce.vertx.web.annotations.EnableJPARepositories;
+import com.github.davidrobbo.bounce.vertx.web.annotations.EnableWeb;
+import com.zaxxer.hikari.HikariDataSource;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@RunWith(VertxUnitRunner.class)
+public class BounceBootstrapTest {
+
+    private Vertx vertx;
+
+    @Before
+    public void setup() {
+        vertx = Vertx.vertx();
+        SharedVerticle.instances.clear();
+    }
+
+    @After
+    public void tearDown(final TestContext context) {
+        vertx.close(context.asyncAssertSuccess());
+    }
+
+    @EnableWeb(packages = {"com.github.davidrobbo.bounce.shared"})
+    @EnableJPARepositories
+    public static class SharedVerticle extends BounceVerticle {
+
+        static final List<BounceVerticle> instances = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void start(final Future<Void> startFuture) throws Exception {
+            instances.add(this);
+            super.start(startFuture);
+        }
+    }
+
+    private static DeploymentOptions options(final boolean shared, final int instances) {
+        return new DeploymentOptions().setInstances(instances).setConfig(new JsonObject()
+                .put("server.port", 8091)
+                .put("bounce.shared", shared)
+                .put("datasource.driver_class", "org.hsqldb.jdbcDriver")
+                .put("datasource.url", "jdbc:hsqldb:mem:bootstrap;shutdown=true")
+                .put("datasource.username", "")
+                .put("datasource.password", "")
+                .put("datasource.pool_size", 2)
+                .put("hibernate.hbm2ddl.auto", "update")
+                .put("hibernate.dialect", "org.hibernate.dialect.HSQLDialect"));
+    }
+
+    @Test
+    public void testInstancesShareBootstrap(final TestContext context) {
+        final Async async = context.async();
+        vertx.deployVerticle(SharedVerticle.class.getName(), options(true, 2), context.asyncAssertSuccess(first ->
+                vertx.deployVerticle(SharedVerticle.class.getName(), options(true, 1), context.asyncAssertSuccess(last -> {
+                    context.assertEquals(3, SharedVerticle.instances.size());
+                    final BounceVerticle verticle = SharedVerticle.instances.get(0);
+                    final EntityManagerFactory emf = verticle.getInjector().getInstance(EntityManagerFactory.class);
+                    final HikariDataSource dataSource = verticle.getInjector().getInstance(HikariDataSource.class);
+                    for (final BounceVerticle instance : SharedVerticle.instances) {
+                        context.assertTrue(verticle.getInjector() == instance.getInjector());
+                        context.assertTrue(emf == instance.getInjector().getInstance(EntityManagerFactory.class));
+                        context.assertTrue(verticle.getRoutes() == instance.getRoutes());
+                        context.assertTrue(instance == verticle || verticle.getRouter() != instance.getRouter());
+                    }
+                    vertx.undeploy(first, context.asyncAssertSuccess(v -> {
+                        context.assertTrue(emf.isOpen());
+                        context.assertFalse(dataSource.isClosed());
+                        vertx.undeploy(last, context.asyncAssertSuccess(w -> {
+                            context.assertFalse(emf.isOpen());
+                            context.assertTrue(dataSource.isClosed());
+                            async.complete();
+                        }));
+                    }));
+                }))));
+    }
+
+    @Test
+    public void testUnsharedInstanceClosesOnStop(final TestContext context) {
+        final DeploymentOptions options = options(false, 1);
+        options.getConfig().put("datasource.replicas",
+                new JsonArray().add(new JsonObject().put("url", "jdbc:hsqldb:mem:bootstrap;shutdown=true")));
+        vertx.deployVerticle(SharedVerticle.class.getName(), options, context.asyncAssertSuccess(id -> {
+            final BounceVerticle verticle = SharedVerticle.instances.get(0);
+            final EntityManagerFactory emf = verticle.getInjector().getInstance(EntityManagerFactory.class);
+            final HikariDataSource dataSource = verticle.getInjector().getInstance(HikariDataSource.class);
+            final RoutingDataSource routing = verticle.getInjector().getInstance(RoutingDataSource.class);
+            context.assertEquals(1, routing.getHealthyReplicas());
+            vertx.undeploy(id, context.asyncAssertSuccess(v -> {
+                context.assertFalse(emf.isOpen());
+                context.assertTrue(dataSource.isClosed());
+                RoutingDataSource.reading(() -> {
+                    try {
+                        routing.getConnection().close();
+                        context.fail("Replica and primary pools should be closed");
+                    } catch (SQLException e) {
+                        context.assertEquals(0, routing.getHealthyReplicas());
+                    }
+                });
+            }));
+        }));
+    }
+}
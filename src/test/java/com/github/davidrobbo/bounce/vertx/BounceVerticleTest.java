@@ -1,38 +1,66 @@
 package com.github.davidrobbo.bounce.vertx;
 
+import com.github.davidrobbo.bounce.metrics.BounceMetrics;
+import com.github.davidrobbo.bounce.metrics.RepositoryStats;
+import com.github.davidrobbo.bounce.repository.AsyncRepository;
 import com.github.davidrobbo.bounce.repository.BaseRepository;
+import com.github.davidrobbo.bounce.repository.QueryPlans;
+import com.github.davidrobbo.bounce.repository.SQLClientFactory;
 import com.github.davidrobbo.bounce.vertx.web.*;
 import com.github.davidrobbo.bounce.vertx.web.annotations.*;
+import com.github.davidrobbo.bounce.vertx.web.codec.BodyCodecs;
+import com.github.davidrobbo.bounce.vertx.web.util.Bounce;
 import com.google.inject.Inject;
 import io.vertx.core.CompositeFuture;
+import io.vertx.core.Context;
 import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpClient;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.json.Json;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.RunTestOnContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.ext.jdbc.JDBCClient;
+import io.vertx.ext.sql.SQLClient;
 import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
 import org.hibernate.annotations.GenericGenerator;
 import org.hibernate.annotations.NotFound;
 import org.hibernate.annotations.NotFoundAction;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.transaction.spi.TransactionObserver;
 import org.junit.*;
 import org.junit.runner.RunWith;
 
 import javax.persistence.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @RunWith(VertxUnitRunner.class)
 public class BounceVerticleTest {
 
     private static int httpPort = 8080;
+    private static TestVerticle verticle;
 
     @ClassRule
     public static final RunTestOnContext rule = new RunTestOnContext();
@@ -43,11 +71,16 @@ public class BounceVerticleTest {
                 .readFileBlocking("application.properties.json").toJsonObject();
         final Integer port = config.getInteger("server.port");
         if (port != null) { httpPort = port; }
-        rule.vertx().deployVerticle(new TestVerticle(), new DeploymentOptions().setConfig(config),
+        verticle = new TestVerticle();
+        rule.vertx().deployVerticle(verticle, new DeploymentOptions().setConfig(config),
                 context.asyncAssertSuccess());
 
     }
 
+    private static BounceMetrics metrics() {
+        return verticle.getInjector().getInstance(BounceMetrics.class);
+    }
+
     @AfterClass
     public static void tearDown(final TestContext context) {
 
@@ -93,6 +126,7 @@ public class BounceVerticleTest {
 
     @Entity(name = "Foo")
     @Table(name = "Foo")
+    @Cacheable
     public static class Foo {
 
         @Id
@@ -142,17 +176,167 @@ public class BounceVerticleTest {
         }
     }
 
+    @Entity(name = "Tag")
+    @Table(name = "Tag")
+    @Cacheable
+    public static class Tag {
+
+        @Id
+        @GeneratedValue(generator = "increment")
+        @GenericGenerator(name = "increment", strategy = "increment")
+        @Column(name = "id")
+        private Integer id;
+        @Column(name = "name")
+        private String name;
+
+        public Tag() {
+        }
+
+        public Tag(String name) { this.name = name; }
+
+        public Integer getId() {
+            return id;
+        }
+
+        public void setId(Integer id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    @Entity(name = "Item")
+    @Table(name = "Item")
+    public static class Item {
+
+        @Id
+        @GeneratedValue(generator = "increment")
+        @GenericGenerator(name = "increment", strategy = "increment")
+        @Column(name = "id")
+        private Integer id;
+        @Column(name = "name", unique = true)
+        private String name;
+        @Column(name = "category")
+        private String category;
+
+        public Item() {
+        }
+
+        public Item(String name, String category) {
+            this.name = name;
+            this.category = category;
+        }
+
+        public Integer getId() {
+            return id;
+        }
+
+        public void setId(Integer id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public void setCategory(String category) {
+            this.category = category;
+        }
+    }
+
     public static class FooRepository extends BaseRepository<Foo, Integer> {
         public FooRepository() {}
 
+        @Inject
+        void registerQueries() {
+            registerQuery("Foo.byName", "SELECT t FROM Foo t where name = :name");
+        }
+
         public Future<List<Foo>> findByName(final String name) {
-            return findAll("SELECT t FROM Foo t where name = :name",
-                    Collections.singletonMap("name", name));
+            return findAllNamed("Foo.byName", Collections.singletonMap("name", name));
+        }
+    }
+
+    public static class BarJpaRepository extends BaseRepository<Bar, Integer> {
+        public BarJpaRepository() {}
+    }
+
+    public static class TagRepository extends BaseRepository<Tag, Integer> {
+        public TagRepository() {}
+    }
+
+    public static class ItemRepository extends BaseRepository<Item, Integer> {
+        public ItemRepository() {}
+
+        public Future<List<Item>> findByCategory(final String category) {
+            return findAll("SELECT t FROM Item t WHERE t.category = :category",
+                    Collections.singletonMap("category", category));
+        }
+
+        /**
+         * Saves the item, recording under "commit", "rollback" and "close" whether each ran on a worker thread
+         */
+        public Future<Item> saveObserved(final Item item, final boolean fail, final Map<String, Boolean> onWorker) {
+            return performTransaction("saveObserved", handler -> {
+                final SessionImplementor session = handler.getEntityManager().unwrap(SessionImplementor.class);
+                session.getTransactionCoordinator().addObserver(new TransactionObserver() {
+                    @Override
+                    public void afterBegin() {
+                    }
+
+                    @Override
+                    public void beforeCompletion() {
+                    }
+
+                    @Override
+                    public void afterCompletion(final boolean successful, final boolean delayed) {
+                        onWorker.put(successful ? "commit" : "rollback", Context.isOnWorkerThread());
+                    }
+                });
+                session.addEventListeners(new BaseSessionEventListener() {
+                    @Override
+                    public void end() {
+                        onWorker.put("close", Context.isOnWorkerThread());
+                    }
+                });
+                handler.getEntityManager().persist(item);
+                if (fail) { handler.getFuture().fail(new BounceHttpException(409, "Conflict")); }
+                else { handler.getFuture().complete(item); }
+            });
+        }
+    }
+
+    public static class BarRepository extends AsyncRepository<Bar, Integer> {
+        public BarRepository() {}
+    }
+
+    /**
+     * JDBC client over the in memory database standing in for a MySQL async client
+     */
+    public static class JDBCClientFactory implements SQLClientFactory {
+        @Override
+        public SQLClient create(final Vertx vertx, final JsonObject config) {
+            return JDBCClient.createShared(vertx, config, POOL_NAME);
         }
     }
 
     @EnableWeb(packages = {"com.github.davidrobbo.bounce.vertx"})
     @EnableJPARepositories
+    @EnableAsyncRepositories(JDBCClientFactory.class)
     private static class TestVerticle extends BounceVerticle {
         @Override
         public void start(Future<Void> startFuture) throws Exception {
@@ -169,10 +353,15 @@ public class BounceVerticleTest {
     public static class TestController {
 
         private final FooRepository fooRepository;
+        private final BarJpaRepository barRepository;
+        private final ItemRepository itemRepository;
 
         @Inject
-        public TestController(final FooRepository fooRepository) {
+        public TestController(final FooRepository fooRepository, final BarJpaRepository barRepository,
+                              final ItemRepository itemRepository) {
             this.fooRepository = fooRepository;
+            this.barRepository = barRepository;
+            this.itemRepository = itemRepository;
         }
 
         @RequestMapping
@@ -185,6 +374,11 @@ public class BounceVerticleTest {
             return Future.succeededFuture(Collections.singletonMap("message", "HELLO WORLD"));
         }
 
+        @RequestMapping(value = "/large", order = 0)
+        public Future<List<String>> large() {
+            return Future.succeededFuture(Collections.nCopies(5000, "HELLO WORLD"));
+        }
+
         @RequestMapping(value = "/should/fail", order = 0)
         public Future<String> testFailParam(@RequestParam(value = "test") String param) {
             return Future.succeededFuture("TEST");
@@ -195,11 +389,107 @@ public class BounceVerticleTest {
             return fooRepository.saveAll(Collections.singletonList(foo));
         }
 
+        @RequestMapping(value = "/limited", order = 1, method = HttpMethod.POST)
+        public Future<Map<String, Object>> limited(@RequestBody(maxSize = 64) final Map<String, Object> body) {
+            return Future.succeededFuture(body);
+        }
+
+        @RequestMapping(value = "/echo", order = 1, method = HttpMethod.POST)
+        public Future<JsonObject> echo(@RequestBody final JsonObject body) {
+            return Future.succeededFuture(body);
+        }
+
+        @RequestMapping(value = "/echo/length", order = 1, method = HttpMethod.POST)
+        public Future<Map<String, Integer>> echoLength(@RequestBody final Buffer body) {
+            return Future.succeededFuture(Collections.singletonMap("length", body.length()));
+        }
+
+        @RequestMapping(value = "/upload", order = 1, method = HttpMethod.POST)
+        public Future<Map<String, Long>> upload(final ReadStream<Buffer> body) {
+            final Future<Map<String, Long>> future = Future.future();
+            final AtomicLong bytes = new AtomicLong();
+            body.handler(chunk -> bytes.addAndGet(chunk.length()));
+            body.exceptionHandler(future::tryFail);
+            body.endHandler(v -> future.tryComplete(Collections.singletonMap("bytes", bytes.get())));
+            return future;
+        }
+
+        /**
+         * Sets the body's handlers only after the whole upload has had time to arrive
+         */
+        @RequestMapping(value = "/upload/late", order = 1, method = HttpMethod.POST)
+        public Future<Map<String, Long>> lateUpload(final RoutingContext context, final ReadStream<Buffer> body) {
+            final Future<Map<String, Long>> future = Future.future();
+            context.vertx().setTimer(200, id -> upload(body).setHandler(future));
+            return future;
+        }
+
+        @Transactional
+        @RequestMapping(value = "/transactional", order = 1, method = HttpMethod.POST)
+        public Future<Map<String, Object>> transactional(
+                @RequestParam(value = "fail", required = false) final Boolean fail) {
+            final Bar bar = new Bar();
+            bar.setName("Transactional");
+            final Future<Bar> saved = barRepository.save(bar);
+            // complete on return when the call joined the unit of work rather than hopping to another worker
+            final boolean joined = saved.isComplete();
+            return saved.compose(b -> Boolean.TRUE.equals(fail)
+                    ? Future.failedFuture(new BounceHttpException(409, "Conflict"))
+                    : barRepository.findOne(b.getId()).map(found -> {
+                        final Map<String, Object> unit = new HashMap<>();
+                        unit.put("joined", joined);
+                        // the persistence context hands back the saved instance only within the same EntityManager
+                        unit.put("sameEntityManager", found == b);
+                        return unit;
+                    }));
+        }
+
+        /**
+         * Saves, then answers from a timer, so the unit of work ends before the future completes
+         */
+        @Transactional
+        @RequestMapping(value = "/transactional/pending", order = 1, method = HttpMethod.POST)
+        public Future<Bar> pending(final RoutingContext context) {
+            final Bar bar = new Bar();
+            bar.setName("Transactional pending");
+            return barRepository.save(bar).compose(saved -> {
+                final Future<Bar> later = Future.future();
+                context.vertx().setTimer(10, id -> later.complete(saved));
+                return later;
+            });
+        }
+
+        @RequestMapping(value = "/transactional", order = 1)
+        public Future<Map<String, Integer>> transactional() {
+            return barRepository.findAll("SELECT t FROM Bar t WHERE t.name = :name",
+                    Collections.singletonMap("name", "Transactional"))
+                    .map(bars -> Collections.singletonMap("count", bars.size()));
+        }
+
+        @RequestMapping(value = "/items", order = 1)
+        public Future<Page<Item>> items(final Pageable pageable, @RequestParam("category") final String category) {
+            return itemRepository.findAll(pageable, "SELECT t FROM Item t WHERE t.category = :category",
+                    Collections.singletonMap("category", category));
+        }
+
+        @RequestMapping(value = "/items/ordered", order = 1)
+        public Future<Page<Item>> orderedItems(final Pageable pageable,
+                                               @RequestParam("category") final String category) {
+            return itemRepository.findAll(pageable,
+                    "SELECT t FROM Item t WHERE t.category = :category ORDER BY t.name DESC",
+                    Collections.singletonMap("category", category));
+        }
+
         @RequestMapping(value = "/all", order = 1)
         public Future<List<Foo>> findAll() {
             return fooRepository.findAll();
         }
 
+        @RequestMapping(value = "/stream", order = 1)
+        public Future<ReadStream<Foo>> stream() {
+            return Future.succeededFuture(fooRepository.stream());
+        }
+
         @RequestMapping(value = "/:id", order = 2)
         public Future findOne(@PathVariable("id") final Integer id) {
             final Future future = Future.future();
@@ -226,9 +516,6 @@ public class BounceVerticleTest {
 
         @RequestMapping(value = "/by/page", order = 2)
         public Future<Page<Foo>> byName(final Pageable pageable) {
-            Assert.assertNotNull(pageable);
-            Assert.assertTrue(1 == pageable.getSize());
-            Assert.assertTrue(0 == pageable.getPage());
             return fooRepository.findAll(pageable);
         }
 
@@ -249,16 +536,65 @@ public class BounceVerticleTest {
     }
 
     @RestController
+    public static class TestAsyncController {
+
+        private final BarRepository barRepository;
+
+        @Inject
+        public TestAsyncController(final BarRepository barRepository) {
+            this.barRepository = barRepository;
+        }
+
+        @RequestMapping(value = "/async", method = HttpMethod.POST)
+        public Future<Bar> save(@RequestBody final Bar bar) {
+            return barRepository.save(bar);
+        }
+
+        @RequestMapping(value = "/async/page", order = 1)
+        public Future<Page<Bar>> page(final Pageable pageable) {
+            return barRepository.findAll(pageable);
+        }
+
+        @RequestMapping(value = "/async/ordered", order = 1)
+        public Future<Page<Bar>> ordered(final Pageable pageable, @RequestParam("prefix") final String prefix) {
+            return barRepository.findAll(pageable, "SELECT id, name FROM Bar WHERE name LIKE ? ORDER BY name DESC",
+                    new JsonArray().add(prefix + "%"));
+        }
+
+        @RequestMapping(value = "/async/:id", order = 2)
+        public Future<Bar> findOne(@PathVariable("id") final Integer id) {
+            return barRepository.findOne(id);
+        }
+
+        @RequestMapping(value = "/async/:id", order = 2, method = HttpMethod.DELETE)
+        public Future<BounceHttpResponse> delete(@PathVariable("id") final Integer id) {
+            final Bar bar = new Bar();
+            bar.setId(id);
+            return barRepository.delete(bar).map(deleted -> new BounceHttpResponse(204));
+        }
+    }
+
+    @RestController(singleton = true)
     @RequestMapping("/prefix")
     public static class TestTwoController {
 
+        private static final AtomicInteger instances = new AtomicInteger();
+
+        @Inject private BounceMetrics metrics;
+
         public TestTwoController() {
+            instances.incrementAndGet();
         }
 
         @RequestMapping(value = "/suffix")
         public Future<Map<String, String>> testMethod() {
             return Future.succeededFuture(Collections.singletonMap("message", "HELLO WORLD 2"));
         }
+
+        @RequestMapping(value = "/metrics")
+        public Future<JsonObject> metrics() {
+            return Future.succeededFuture(metrics.snapshot());
+        }
     }
 
     public static class UnAuthInterceptor implements RouteInterceptor {
@@ -289,6 +625,7 @@ public class BounceVerticleTest {
         httpClient.getNow(httpPort, "localhost", "/", response -> {
 
             context.assertTrue(response.statusCode() == 200);
+            context.assertNotNull(response.getHeader("Content-Length"));
             response.bodyHandler(body -> {
 
                 context.assertEquals("HELLO WORLD", body.toJsonObject().getString("message"));
@@ -297,6 +634,25 @@ public class BounceVerticleTest {
         });
     }
 
+    @Test
+    public void testLargeResponseIsChunked(final TestContext context) throws Exception {
+
+        final Async async = context.async();
+        final HttpClient httpClient = rule.vertx().createHttpClient();
+        httpClient.getNow(httpPort, "localhost", "/large", response -> {
+
+            context.assertTrue(response.statusCode() == 200);
+            context.assertEquals("chunked", response.getHeader("Transfer-Encoding"));
+            response.bodyHandler(body -> {
+
+                final JsonArray array = body.toJsonArray();
+                context.assertEquals(5000, array.size());
+                context.assertEquals("HELLO WORLD", array.getString(4999));
+                async.complete();
+            });
+        });
+    }
+
     @Test
     public void testRouteInterceptor(final TestContext context) throws Exception {
 
@@ -321,6 +677,71 @@ public class BounceVerticleTest {
         });
     }
 
+    @Test
+    public void testInvalidPathVariable(final TestContext context) throws Exception {
+
+        final Async async = context.async();
+        final HttpClient httpClient = rule.vertx().createHttpClient();
+        httpClient.getNow(httpPort, "localhost", "/not-a-number", response -> {
+
+            context.assertTrue(response.statusCode() == 400);
+            response.bodyHandler(body -> {
+
+                context.assertEquals("Path Variable id is invalid", body.toJsonObject().getString("message"));
+                async.complete();
+            });
+        });
+    }
+
+    @Test
+    public void testInvalidPageable(final TestContext context) throws Exception {
+
+        final Async async = context.async();
+        final HttpClient httpClient = rule.vertx().createHttpClient();
+        httpClient.getNow(httpPort, "localhost", "/by/page?page=first&size=1", response -> {
+
+            context.assertTrue(response.statusCode() == 400);
+            async.complete();
+        });
+    }
+
+    @Test
+    public void testInvalidOrder(final TestContext context) throws Exception {
+
+        final Async async = context.async();
+        final HttpClient httpClient = rule.vertx().createHttpClient();
+        httpClient.getNow(httpPort, "localhost", "/by/page?page=0&size=1&order=name%20asc,asc", response -> {
+
+            context.assertTrue(response.statusCode() == 400);
+            async.complete();
+        });
+    }
+
+    @Test
+    public void testInvalidRequestMappingFailsStartup(final TestContext context) throws Exception {
+
+        try {
+            Bounce.springify(new String[]{"com.github.davidrobbo.bounce.invalid"}, Router.router(rule.vertx()));
+            context.fail("Invalid @RequestMapping methods should fail startup");
+        } catch (Exception e) {
+            context.assertTrue(e.getMessage().contains("must return a Future"));
+            context.assertTrue(e.getMessage().contains("@PathVariable(\"name\")"));
+            context.assertTrue(e.getMessage().contains("@Transactional requires @EnableJPARepositories"));
+            context.assertTrue(e.getMessage().contains("cannot read a ReadStream<Buffer>"));
+        }
+    }
+
+    @Test
+    public void testBrokenRegisteredQueryFailsStartup(final TestContext context) throws Exception {
+
+        try {
+            Bounce.compile(new String[]{"com.github.davidrobbo.bounce.broken"}, verticle.getInjector());
+            context.fail("A registered query that does not compile should fail startup");
+        } catch (Exception e) {
+            context.assertTrue(e.getMessage().contains("NoSuchEntity"));
+        }
+    }
+
     @Test
     public void testClassLevelRequestMapping(final TestContext context) throws Exception {
 
@@ -332,11 +753,294 @@ public class BounceVerticleTest {
             response.bodyHandler(body -> {
 
                 context.assertEquals("HELLO WORLD 2", body.toJsonObject().getString("message"));
+                context.assertEquals(1, TestTwoController.instances.get());
                 async.complete();
             });
         });
     }
 
+    @Test
+    public void testMetrics(final TestContext context) throws Exception {
+
+        final Async async = context.async();
+        final HttpClient httpClient = rule.vertx().createHttpClient();
+        // max_lag_ms only exists once the event loop monitor's timer has fired
+        rule.vertx().setTimer(250, id -> httpClient.getNow(httpPort, "localhost", "/prefix/metrics", response -> {
+
+            context.assertTrue(response.statusCode() == 200);
+            response.bodyHandler(body -> {
+
+                final JsonObject metrics = body.toJsonObject();
+                context.assertTrue(metrics.getInteger("datasource.pool.total") > 0);
+                context.assertNotNull(metrics.getInteger("repository.in_flight"));
+                context.assertNotNull(metrics.getLong("repository.query_plans.hits"));
+                context.assertEquals(1, metrics.getInteger("datasource.replicas.healthy"));
+                context.assertTrue(metrics.getLong("eventloop.max_lag_ms") >= 0);
+                async.complete();
+            });
+        }));
+    }
+
+    /**
+     * Repeated reads of a @Cacheable entity are served by the second level and query caches, writes invalidate them
+     */
+    @Test
+    public void testSecondLevelCache(final TestContext context) throws Exception {
+
+        final TagRepository tags = verticle.getInjector().getInstance(TagRepository.class);
+        tags.save(new Tag("first")).compose(first -> tags.findOne(first.getId())).compose(first -> {
+            final RepositoryStats findOne = RepositoryStats.of(metrics(), TagRepository.class, "findOne");
+            return tags.findOne(first.getId()).map(cached -> {
+                findOne.assertQueries(0);
+                context.assertEquals("first", cached.getName());
+                return cached;
+            });
+        }).compose(first -> tags.findAll().map(first)).compose(first -> {
+            final RepositoryStats findAll = RepositoryStats.of(metrics(), TagRepository.class, "findAll");
+            return tags.findAll().map(all -> {
+                findAll.assertQueries(0);
+                context.assertEquals(1, all.size());
+                return first;
+            });
+        }).compose(first -> tags.save(new Tag("second")).map(first)).compose(first -> {
+            final RepositoryStats findAll = RepositoryStats.of(metrics(), TagRepository.class, "findAll");
+            return tags.findAll().map(all -> {
+                findAll.assertQueries(1);
+                context.assertEquals(2, all.size());
+                return first;
+            });
+        }).compose(first -> tags.delete(first).map(first)).compose(first -> {
+            final Future<Integer> fresh = Future.future();
+            tags.findOne(first.getId()).setHandler(deleted -> {
+                context.assertTrue(deleted.failed());
+                tags.findAll().map(List::size).setHandler(fresh);
+            });
+            return fresh;
+        }).setHandler(context.asyncAssertSuccess(size -> context.assertEquals(1, size)));
+    }
+
+    /**
+     * insertAll bypasses the persistence context, yet a cached findAll() afterwards sees its rows
+     */
+    @Test
+    public void testInsertAllInvalidatesCachedQueries(final TestContext context) throws Exception {
+
+        final TagRepository tags = verticle.getInjector().getInstance(TagRepository.class);
+        tags.findAll().compose(before -> {
+            final RepositoryStats cached = RepositoryStats.of(metrics(), TagRepository.class, "findAll");
+            return tags.findAll().map(all -> {
+                cached.assertQueries(0);
+                return before.size();
+            });
+        }).compose(before -> tags.insertAll(Arrays.asList(new Tag("bulk-first"), new Tag("bulk-second")))
+                .compose(inserted -> tags.findAll().map(all -> {
+                    context.assertEquals(before + 2, all.size());
+                    return inserted;
+                }))
+        ).compose(inserted -> {
+            // leave the tags testSecondLevelCache counts as they were
+            final List<Future> deleted = new ArrayList<>();
+            inserted.forEach(tag -> deleted.add(tags.delete(tag)));
+            return CompositeFuture.all(deleted);
+        }).setHandler(context.asyncAssertSuccess());
+    }
+
+    /**
+     * More than two batches of hibernate.jdbc.batch_size (50)
+     */
+    @Test
+    public void testBatchedWrites(final TestContext context) throws Exception {
+
+        final ItemRepository items = verticle.getInjector().getInstance(ItemRepository.class);
+        final RepositoryStats saveAll = RepositoryStats.of(metrics(), ItemRepository.class, "saveAll");
+        items.saveAll(items("saved", 120)).compose(saved -> {
+            // the increment id lookup, then one batched INSERT per 50 entities rather than one per entity
+            saveAll.assertMaxQueries(1 + 3);
+            return items.findByCategory("saved");
+        }).compose(saved -> {
+            context.assertEquals(120, saved.size());
+            return items.insertAll(items("inserted", 120));
+        }).compose(inserted -> items.findByCategory("inserted")).compose(inserted -> {
+            context.assertEquals(120, inserted.size());
+            final List<Item> duplicated = items("rolled-back", 120);
+            duplicated.get(119).setName(duplicated.get(0).getName());
+            final Future<List<Item>> rolledBack = Future.future();
+            items.insertAll(duplicated).setHandler(failed -> {
+                context.assertTrue(failed.failed());
+                items.findByCategory("rolled-back").setHandler(rolledBack);
+            });
+            return rolledBack;
+        }).setHandler(context.asyncAssertSuccess(rolledBack -> context.assertEquals(0, rolledBack.size())));
+    }
+
+    /**
+     * Pages of a JPQL query counted by its derived COUNT query as each count mode asks
+     */
+    @Test
+    public void testCountModes(final TestContext context) throws Exception {
+
+        final ItemRepository items = verticle.getInjector().getInstance(ItemRepository.class);
+        final String uri = "/items?category=counted&size=2&order=name,asc&count=";
+        final Async async = context.async();
+        items.saveAll(items("counted", 3)).setHandler(context.asyncAssertSuccess(saved ->
+                itemsPage(context, uri + "exact", 2, exact -> {
+                    context.assertEquals(3L, exact.getLong("totalElements"));
+                    context.assertTrue(exact.getBoolean("hasNext"));
+                    itemsPage(context, uri + "cached", 2, cached -> {
+                        context.assertEquals(3L, cached.getLong("totalElements"));
+                        items.save(new Item("counted-3", "counted")).setHandler(context.asyncAssertSuccess(added ->
+                                // the total is reused without a COUNT query until it expires
+                                itemsPage(context, uri + "cached", 1, stale -> {
+                                    context.assertEquals(3L, stale.getLong("totalElements"));
+                                    // HSQLDB keeps no row estimate, so it falls back to an exact count
+                                    itemsPage(context, uri + "estimated", 2, estimated -> {
+                                        context.assertEquals(4L, estimated.getLong("totalElements"));
+                                        itemsPage(context, uri + "none", 1, none -> {
+                                            context.assertNull(none.getLong("totalElements"));
+                                            context.assertTrue(none.getBoolean("hasNext"));
+                                            context.assertEquals(2, none.getJsonArray("content").size());
+                                            async.complete();
+                                        });
+                                    });
+                                })));
+                    });
+                })));
+    }
+
+    private void itemsPage(final TestContext context, final String uri, final long queries,
+                           final Handler<JsonObject> next) {
+        final RepositoryStats stats = RepositoryStats.of(metrics(), ItemRepository.class, "findAll");
+        rule.vertx().createHttpClient().getNow(httpPort, "localhost", uri, response -> {
+
+            context.assertEquals(200, response.statusCode());
+            response.bodyHandler(body -> {
+                context.assertEquals(queries, stats.queries());
+                next.handle(body.toJsonObject());
+            });
+        });
+    }
+
+    /**
+     * Repeated order parameters are keys in turn, ties are broken by the id
+     */
+    @Test
+    public void testMultiKeyOrder(final TestContext context) throws Exception {
+
+        final ItemRepository items = verticle.getInjector().getInstance(ItemRepository.class);
+        final List<Item> ordered = items("ordered", 3);
+        ordered.get(0).setCategory("ordered-b");
+        ordered.get(1).setCategory("ordered-a");
+        ordered.get(2).setCategory("ordered-a");
+        final Async async = context.async();
+        items.saveAll(ordered).setHandler(context.asyncAssertSuccess(saved -> {
+            final Pageable pageable = new Pageable().defaults();
+            pageable.setSize(1000);
+            pageable.setOrder("category,asc;name,desc");
+            items.findAll(pageable).setHandler(context.asyncAssertSuccess(page -> {
+                for (int i = 1; i < page.getContent().size(); i++) {
+                    final Item previous = page.getContent().get(i - 1);
+                    final Item item = page.getContent().get(i);
+                    final int category = previous.getCategory().compareTo(item.getCategory());
+                    context.assertTrue(category < 0 || category == 0 && previous.getName().compareTo(item.getName()) > 0);
+                }
+                final String uri = "/items?category=ordered-a&size=1";
+                itemsPage(context, uri + "&order=category,asc&order=name,desc", 2, first -> {
+                    context.assertEquals("ordered-2", first.getJsonArray("content").getJsonObject(0).getString("name"));
+                    // equal categories, so the id decides
+                    itemsPage(context, uri + "&page=1&order=category", 2, tie -> {
+                        context.assertEquals("ordered-2", tie.getJsonArray("content").getJsonObject(0).getString("name"));
+                        context.assertFalse(tie.getBoolean("hasNext"));
+                        async.complete();
+                    });
+                });
+            }));
+        }));
+    }
+
+    @Test
+    public void testQueryPlanHits(final TestContext context) throws Exception {
+
+        final ItemRepository items = verticle.getInjector().getInstance(ItemRepository.class);
+        final QueryPlans plans = verticle.getInjector().getInstance(QueryPlans.class);
+        items.findByCategory("planned").compose(first -> {
+            final long hits = plans.getHits();
+            final long misses = plans.getMisses();
+            return items.findByCategory("planned").map(second -> {
+                context.assertEquals(misses, plans.getMisses());
+                return plans.getHits() - hits;
+            });
+        }).setHandler(context.asyncAssertSuccess(hits -> context.assertEquals(1L, hits)));
+    }
+
+    /**
+     * IN lists are padded to the next power of two, so 3 and 4 parameters send one statement and 5 another
+     */
+    @Test
+    public void testInClauseParameterPadding(final TestContext context) throws Exception {
+
+        final SessionFactory sessionFactory = verticle.getInjector().getInstance(EntityManagerFactory.class)
+                .unwrap(SessionFactory.class);
+        final Set<String> statements = ConcurrentHashMap.newKeySet();
+        rule.vertx().<Void>executeBlocking(future -> {
+            try (Session session = sessionFactory.withOptions().statementInspector(sql -> {
+                statements.add(sql);
+                return sql;
+            }).openSession()) {
+                for (final List<Integer> ids : Arrays.asList(Arrays.asList(1, 2, 3), Arrays.asList(1, 2, 3, 4),
+                        Arrays.asList(1, 2, 3, 4, 5))) {
+                    session.createQuery("SELECT t FROM Item t WHERE t.id IN :ids").setParameterList("ids", ids).list();
+                }
+            }
+            future.complete();
+        }, context.asyncAssertSuccess(v -> context.assertEquals(2, statements.size())));
+    }
+
+    @Test
+    public void testQueryPageRejectsCursor(final TestContext context) throws Exception {
+
+        final ItemRepository items = verticle.getInjector().getInstance(ItemRepository.class);
+        final Pageable pageable = new Pageable().defaults();
+        pageable.setCursor(Base64.getUrlEncoder().encodeToString("[0]".getBytes()));
+        items.findAll(pageable, "SELECT t FROM Item t", Collections.emptyMap())
+                .setHandler(context.asyncAssertFailure(e -> {
+                    context.assertTrue(e instanceof BounceHttpException);
+                    context.assertEquals(400, ((BounceHttpException) e).getStatusCode());
+                }));
+    }
+
+    /**
+     * A query with its own ORDER BY keeps it, so an order requested by the client is refused rather than appended
+     */
+    @Test
+    public void testOrderedQueryRejectsOrder(final TestContext context) throws Exception {
+
+        final Async async = context.async();
+        final HttpClient httpClient = rule.vertx().createHttpClient();
+        final String uri = "/items/ordered?category=ordered-query";
+        verticle.getInjector().getInstance(ItemRepository.class).saveAll(items("ordered-query", 3))
+                .setHandler(context.asyncAssertSuccess(saved -> httpClient.getNow(httpPort, "localhost",
+                        uri + "&order=name,asc", rejected -> {
+
+            context.assertEquals(400, rejected.statusCode());
+            httpClient.getNow(httpPort, "localhost", uri, response -> {
+
+                context.assertEquals(200, response.statusCode());
+                response.bodyHandler(body -> {
+                    final JsonArray content = body.toJsonObject().getJsonArray("content");
+                    context.assertEquals(3, content.size());
+                    context.assertEquals("ordered-query-2", content.getJsonObject(0).getString("name"));
+                    async.complete();
+                });
+            });
+        })));
+    }
+
+    private static List<Item> items(final String category, final int count) {
+        final List<Item> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) { items.add(new Item(category + "-" + i, category)); }
+        return items;
+    }
+
     @Test
     public void testJPA(final TestContext context) throws Exception {
 
@@ -363,6 +1067,314 @@ public class BounceVerticleTest {
         }).setChunked(true).write(Json.encode(foo)).end();
     }
 
+    @Test
+    public void testRequestBodyLimit(final TestContext context) throws Exception {
+
+        final Async async = context.async();
+        final HttpClient httpClient = rule.vertx().createHttpClient();
+        httpClient.post(httpPort, "localhost", "/limited", small -> {
+
+            context.assertEquals(200, small.statusCode());
+            httpClient.post(httpPort, "localhost", "/limited", large -> {
+
+                context.assertEquals(413, large.statusCode());
+                async.complete();
+            }).end(new JsonObject().put("name", String.join("", Collections.nCopies(100, "x"))).encode());
+        }).end(new JsonObject().put("name", "small").encode());
+    }
+
+    @Test
+    public void testRequestBodyPassthrough(final TestContext context) throws Exception {
+
+        final Async async = context.async();
+        final HttpClient httpClient = rule.vertx().createHttpClient();
+        final JsonObject json = new JsonObject().put("name", "echo").put("items", new JsonArray().add(1).add(2));
+        httpClient.post(httpPort, "localhost", "/echo", response -> {
+
+            context.assertEquals(200, response.statusCode());
+            response.bodyHandler(body -> {
+                context.assertEquals(json, body.toJsonObject());
+                httpClient.post(httpPort, "localhost", "/echo/length", length -> {
+
+                    context.assertEquals(200, length.statusCode());
+                    length.bodyHandler(lengthBody -> {
+                        context.assertEquals(json.toBuffer().length(), lengthBody.toJsonObject().getInteger("length"));
+                        async.complete();
+                    });
+                }).end(json.toBuffer());
+            });
+        }).end(json.toBuffer());
+    }
+
+    @Test
+    public void testInvalidRequestBody(final TestContext context) throws Exception {
+
+        final Async async = context.async();
+        final HttpClient httpClient = rule.vertx().createHttpClient();
+        httpClient.post(httpPort, "localhost", "/", response -> {
+
+            context.assertEquals(400, response.statusCode());
+            response.bodyHandler(body -> {
+                context.assertEquals("Request Body is invalid", body.toJsonObject().getString("message"));
+                async.complete();
+            });
+        }).end("{\"name\": ");
+    }
+
+    @Test
+    public void testBodyCodecs(final TestContext context) throws Exception {
+
+        final Async async = context.async();
+        final HttpClient httpClient = rule.vertx().createHttpClient();
+        final JsonObject json = new JsonObject().put("name", "binary").put("items", new JsonArray().add(1).add(2));
+        final Buffer smile = Buffer.buffer(BodyCodecs.SMILE.getMapper().writeValueAsBytes(json));
+        httpClient.post(httpPort, "localhost", "/echo", response -> {
+
+            context.assertEquals(200, response.statusCode());
+            context.assertEquals("application/cbor", response.getHeader("Content-Type"));
+            context.assertEquals("Accept", response.getHeader("Vary"));
+            response.bodyHandler(body -> {
+                try {
+                    context.assertEquals(json,
+                            new JsonObject(BodyCodecs.CBOR.getMapper().readValue(body.getBytes(), Map.class)));
+                }
+                catch (Exception e) { context.fail(e); }
+                httpClient.post(httpPort, "localhost", "/echo", unsupported -> {
+
+                    context.assertEquals(415, unsupported.statusCode());
+                    context.assertEquals("application/json", unsupported.getHeader("Content-Type"));
+                    async.complete();
+                }).putHeader("Content-Type", "text/plain").putHeader("Accept", "text/html, */*;q=0.8").end("binary");
+            });
+        }).putHeader("Content-Type", "application/x-jackson-smile")
+                .putHeader("Accept", "application/json;q=0.5, application/cbor").end(smile);
+    }
+
+    @Test
+    public void testStreamingUpload(final TestContext context) throws Exception {
+
+        final Async async = context.async();
+        final HttpClient httpClient = rule.vertx().createHttpClient();
+        final Buffer upload = Buffer.buffer(new byte[256 * 1024]);
+        httpClient.post(httpPort, "localhost", "/upload", response -> {
+
+            context.assertEquals(200, response.statusCode());
+            response.bodyHandler(body -> {
+                context.assertEquals((long) upload.length(), body.toJsonObject().getLong("bytes"));
+                async.complete();
+            });
+        }).setChunked(true).end(upload);
+    }
+
+    /**
+     * The request is paused as soon as the route matches, so chunks arriving before the controller reads them wait
+     */
+    @Test
+    public void testLateStreamingUpload(final TestContext context) throws Exception {
+
+        final Async async = context.async();
+        final HttpClient httpClient = rule.vertx().createHttpClient();
+        final Buffer upload = Buffer.buffer(new byte[64 * 1024]);
+        httpClient.post(httpPort, "localhost", "/upload/late", response -> {
+
+            context.assertEquals(200, response.statusCode());
+            response.bodyHandler(body -> {
+                context.assertEquals((long) upload.length(), body.toJsonObject().getLong("bytes"));
+                async.complete();
+            });
+        }).setChunked(true).end(upload);
+    }
+
+    /**
+     * A repository transaction commits or rolls back and closes its EntityManager on the repository worker
+     */
+    @Test
+    public void testTransactionEndsOnWorker(final TestContext context) {
+        final ItemRepository repository = verticle.getInjector().getInstance(ItemRepository.class);
+        final Map<String, Boolean> committed = new ConcurrentHashMap<>();
+        final Map<String, Boolean> rolledBack = new ConcurrentHashMap<>();
+        final Async async = context.async();
+        repository.saveObserved(new Item("observed-commit", "observed"), false, committed).setHandler(saved -> {
+            context.assertTrue(saved.succeeded());
+            context.assertEquals(true, committed.get("commit"));
+            context.assertEquals(true, committed.get("close"));
+            repository.saveObserved(new Item("observed-rollback", "observed"), true, rolledBack).setHandler(failed -> {
+                context.assertTrue(failed.failed());
+                context.assertEquals(true, rolledBack.get("rollback"));
+                context.assertEquals(true, rolledBack.get("close"));
+                repository.findByCategory("observed").setHandler(context.asyncAssertSuccess(items -> {
+                    context.assertEquals(1, items.size());
+                    async.complete();
+                }));
+            });
+        });
+    }
+
+    /**
+     * The duplicate name is only sent when the transaction commits, so the call fails at commit
+     */
+    @Test
+    public void testFailedCommitFailsCall(final TestContext context) {
+        final ItemRepository repository = verticle.getInjector().getInstance(ItemRepository.class);
+        final Async async = context.async();
+        repository.save(new Item("commit-duplicate", "commit")).setHandler(context.asyncAssertSuccess(first ->
+                repository.save(new Item("commit-duplicate", "commit")).setHandler(context.asyncAssertFailure(e ->
+                        repository.findByCategory("commit").setHandler(context.asyncAssertSuccess(items -> {
+                            context.assertEquals(1, items.size());
+                            async.complete();
+                        }))))));
+    }
+
+    @Test
+    public void testTransactional(final TestContext context) throws Exception {
+
+        final Async async = context.async();
+        final HttpClient httpClient = rule.vertx().createHttpClient();
+        httpClient.post(httpPort, "localhost", "/transactional?fail=true", response -> {
+
+            context.assertEquals(409, response.statusCode());
+            transactionalCount(context, 0, () -> httpClient.post(httpPort, "localhost", "/transactional", committed -> {
+
+                context.assertEquals(200, committed.statusCode());
+                committed.bodyHandler(body -> {
+                    final JsonObject unit = body.toJsonObject();
+                    context.assertTrue(unit.getBoolean("joined"));
+                    context.assertTrue(unit.getBoolean("sameEntityManager"));
+                    transactionalCount(context, 1, async::complete);
+                });
+            }).end());
+        }).end();
+    }
+
+    /**
+     * A @Transactional method whose future is still pending when it returns is rolled back and fails with a 500
+     */
+    @Test
+    public void testPendingTransactionalRollsBack(final TestContext context) throws Exception {
+
+        final Async async = context.async();
+        final HttpClient httpClient = rule.vertx().createHttpClient();
+        httpClient.post(httpPort, "localhost", "/transactional/pending", response -> {
+
+            context.assertEquals(500, response.statusCode());
+            verticle.getInjector().getInstance(BarJpaRepository.class)
+                    .findAll("SELECT t FROM Bar t WHERE t.name = :name",
+                            Collections.singletonMap("name", "Transactional pending"))
+                    .setHandler(context.asyncAssertSuccess(bars -> {
+                        context.assertTrue(bars.isEmpty());
+                        async.complete();
+                    }));
+        }).end();
+    }
+
+    /**
+     * Only the committed save leaves a Bar behind, the rolled back one does not
+     */
+    private void transactionalCount(final TestContext context, final int expected, final Runnable next) {
+        final HttpClient httpClient = rule.vertx().createHttpClient();
+        httpClient.getNow(httpPort, "localhost", "/transactional", response -> {
+
+            context.assertEquals(200, response.statusCode());
+            response.bodyHandler(body -> {
+                context.assertEquals(expected, body.toJsonObject().getInteger("count"));
+                next.run();
+            });
+        });
+    }
+
+    @Test
+    public void testAsyncRepository(final TestContext context) throws Exception {
+
+        final Async async = context.async();
+        final HttpClient httpClient = rule.vertx().createHttpClient();
+        final Bar bar = new Bar();
+        bar.setId(100);
+        bar.setName("Async");
+        httpClient.post(httpPort, "localhost", "/async", response -> {
+
+            context.assertTrue(response.statusCode() == 200);
+            response.bodyHandler(body -> {
+                context.assertEquals("Async", body.toJsonObject().getString("name"));
+                asyncPage(context, async);
+            });
+        }).setChunked(true).write(Json.encode(bar)).end();
+    }
+
+    private void asyncPage(final TestContext context, final Async async) {
+        final HttpClient httpClient = rule.vertx().createHttpClient();
+        final RepositoryStats stats = RepositoryStats.of(metrics(), BarRepository.class, "findAll");
+        httpClient.getNow(httpPort, "localhost", "/async/page?page=0&size=1&order=id,desc", response -> {
+
+            context.assertTrue(response.statusCode() == 200);
+            response.bodyHandler(body -> {
+                final JsonObject page = body.toJsonObject();
+                // the page and its count
+                context.assertEquals(2L, stats.queries());
+                context.assertEquals(1, page.getJsonArray("content").size());
+                context.assertEquals(100, page.getJsonArray("content").getJsonObject(0).getInteger("id"));
+                context.assertTrue(page.getLong("totalElements") >= 1);
+                asyncFindOne(context, async);
+            });
+        });
+    }
+
+    private void asyncFindOne(final TestContext context, final Async async) {
+        final HttpClient httpClient = rule.vertx().createHttpClient();
+        httpClient.getNow(httpPort, "localhost", "/async/100", response -> {
+
+            context.assertTrue(response.statusCode() == 200);
+            response.bodyHandler(body -> {
+                context.assertEquals("Async", body.toJsonObject().getString("name"));
+                asyncDelete(context, async);
+            });
+        });
+    }
+
+    private void asyncDelete(final TestContext context, final Async async) {
+        final HttpClient httpClient = rule.vertx().createHttpClient();
+        httpClient.delete(httpPort, "localhost", "/async/100", response -> {
+            context.assertTrue(response.statusCode() == 204);
+            async.complete();
+        }).end();
+    }
+
+    /**
+     * A SQL query with its own ORDER BY keeps it, so an order requested by the client is refused rather than appended
+     */
+    @Test
+    public void testAsyncOrderedQueryRejectsOrder(final TestContext context) throws Exception {
+
+        final Async async = context.async();
+        final HttpClient httpClient = rule.vertx().createHttpClient();
+        final BarRepository bars = verticle.getInjector().getInstance(BarRepository.class);
+        final List<Bar> saved = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            final Bar bar = new Bar();
+            bar.setId(200 + i);
+            bar.setName("async-ordered-" + i);
+            saved.add(bar);
+        }
+        final String uri = "/async/ordered?prefix=async-ordered-";
+        bars.saveAll(saved).setHandler(context.asyncAssertSuccess(v -> httpClient.getNow(httpPort, "localhost",
+                uri + "&order=name,asc", rejected -> {
+
+            context.assertEquals(400, rejected.statusCode());
+            httpClient.getNow(httpPort, "localhost", uri, response -> {
+
+                context.assertEquals(200, response.statusCode());
+                response.bodyHandler(body -> {
+                    final JsonObject page = body.toJsonObject();
+                    context.assertEquals(2L, page.getLong("totalElements"));
+                    context.assertEquals("async-ordered-1",
+                            page.getJsonArray("content").getJsonObject(0).getString("name"));
+                    final List<Future> deleted = new ArrayList<>();
+                    saved.forEach(bar -> deleted.add(bars.delete(bar)));
+                    CompositeFuture.all(deleted).setHandler(context.asyncAssertSuccess(d -> async.complete()));
+                });
+            });
+        })));
+    }
+
     public void getById(final TestContext context, final Async async) throws Exception {
         final HttpClient httpClient = rule.vertx().createHttpClient();
         httpClient.getNow(httpPort, "localhost", "/1", response -> {
@@ -414,6 +1426,7 @@ public class BounceVerticleTest {
 
     public void byPage(final TestContext context, final Async async) throws Exception {
         final HttpClient httpClient = rule.vertx().createHttpClient();
+        final RepositoryStats stats = RepositoryStats.of(metrics(), FooRepository.class, "findAll");
         httpClient.getNow(httpPort, "localhost", "/by/page?page=0&size=1", response -> {
 
             context.assertTrue(response.statusCode() == 200);
@@ -422,8 +1435,54 @@ public class BounceVerticleTest {
                     final Page foos = Json.decodeValue(body, Page.class);
                     final JsonArray array = new JsonArray();
                     foos.getContent().forEach(array::add);
+                    // the page and its count
+                    context.assertEquals(2L, stats.queries());
+                    context.assertEquals((long) foos.getContent().size(), stats.rows());
+                    context.assertTrue(0 == foos.getPage());
                     context.assertTrue(1 == foos.getSize());
+                    context.assertEquals(1L, foos.getTotalElements());
+                    context.assertFalse(foos.getHasNext());
+                    context.assertNull(foos.getNextCursor());
                     isFoos(context, array.toBuffer());
+                    // rows after id 0
+                    byCursor(context, async, Base64.getUrlEncoder().encodeToString("[0]".getBytes()));
+                } catch (Exception e) {
+                    context.fail(e);
+                }
+            });
+        });
+    }
+
+    public void byCursor(final TestContext context, final Async async, final String cursor) throws Exception {
+        final HttpClient httpClient = rule.vertx().createHttpClient();
+        final RepositoryStats stats = RepositoryStats.of(metrics(), FooRepository.class, "findAll");
+        httpClient.getNow(httpPort, "localhost", "/by/page?size=1&count=none&cursor=" + cursor, response -> {
+
+            context.assertTrue(response.statusCode() == 200);
+            response.bodyHandler(body -> {
+                try {
+                    final Page foos = Json.decodeValue(body, Page.class);
+                    // count=none reads the page alone
+                    context.assertEquals(1L, stats.queries());
+                    context.assertEquals(1, foos.getContent().size());
+                    context.assertNull(foos.getTotalElements());
+                    context.assertFalse(foos.getHasNext());
+                    stream(context, async);
+                } catch (Exception e) {
+                    context.fail(e);
+                }
+            });
+        });
+    }
+
+    public void stream(final TestContext context, final Async async) throws Exception {
+        final HttpClient httpClient = rule.vertx().createHttpClient();
+        httpClient.getNow(httpPort, "localhost", "/stream", response -> {
+
+            context.assertTrue(response.statusCode() == 200);
+            response.bodyHandler(body -> {
+                try {
+                    isFoos(context, body);
                     delete(context, async);
                 } catch (Exception e) {
                     context.fail(e);
@@ -0,0 +1,128 @@
+package com.github.davidrobbo.bounce.vertx.web.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Map;
+
+public class BodyCodecsTest {
+
+    public static class Event {
+
+        private String name;
+        private Instant at;
+        private byte[] payload;
+        private JsonObject attributes;
+        private JsonArray tags;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+
+        public Instant getAt() {
+            return at;
+        }
+
+        public void setAt(final Instant at) {
+            this.at = at;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+
+        public void setPayload(final byte[] payload) {
+            this.payload = payload;
+        }
+
+        public JsonObject getAttributes() {
+            return attributes;
+        }
+
+        public void setAttributes(final JsonObject attributes) {
+            this.attributes = attributes;
+        }
+
+        public JsonArray getTags() {
+            return tags;
+        }
+
+        public void setTags(final JsonArray tags) {
+            this.tags = tags;
+        }
+    }
+
+    public static class Money {
+
+        private final long cents;
+
+        public Money(final long cents) {
+            this.cents = cents;
+        }
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws Exception {
+        final Event event = new Event();
+        event.setName("deployed");
+        event.setAt(Instant.parse("2018-07-01T12:30:45.123Z"));
+        event.setPayload(new byte[]{1, 2, 3, -1});
+        event.setAttributes(new JsonObject().put("region", "eu").put("replicas", 3));
+        event.setTags(new JsonArray().add("a").add("b"));
+        for (final BodyCodec codec : new BodyCodec[]{BodyCodecs.SMILE, BodyCodecs.CBOR}) {
+            final ObjectMapper mapper = codec.getMapper();
+            final Event read = mapper.readValue(mapper.writeValueAsBytes(event), Event.class);
+            Assert.assertEquals(event.getName(), read.getName());
+            Assert.assertEquals(event.getAt(), read.getAt());
+            Assert.assertArrayEquals(event.getPayload(), read.getPayload());
+            Assert.assertEquals(event.getAttributes(), read.getAttributes());
+            Assert.assertEquals(event.getTags(), read.getTags());
+
+            // written as Json.mapper writes them, bar byte[] which is native binary
+            final Map<?, ?> map = mapper.readValue(mapper.writeValueAsBytes(event), Map.class);
+            Assert.assertEquals("2018-07-01T12:30:45.123Z", map.get("at"));
+            Assert.assertTrue(map.get("payload") instanceof byte[]);
+        }
+    }
+
+    @Test
+    public void testBase64BytesAreRead() throws Exception {
+        final ObjectMapper mapper = BodyCodecs.CBOR.getMapper();
+        final byte[] written = mapper.writeValueAsBytes(new JsonObject(Json.encode(new JsonObject()
+                .put("payload", new byte[]{4, 5, 6}))).getMap());
+        Assert.assertArrayEquals(new byte[]{4, 5, 6}, mapper.readValue(written, Event.class).getPayload());
+    }
+
+    /**
+     * A module registered on Json.mapper before a mapper is built applies to it
+     */
+    @Test
+    public void testJsonMapperModulesApply() throws Exception {
+        final SimpleModule module = new SimpleModule();
+        module.addSerializer(Money.class, new JsonSerializer<Money>() {
+            @Override
+            public void serialize(final Money value, final JsonGenerator generator,
+                                  final SerializerProvider provider) throws IOException {
+                generator.writeString(value.cents / 100 + "." + String.format("%02d", value.cents % 100));
+            }
+        });
+        Json.mapper.registerModule(module);
+        final ObjectMapper mapper = BodyCodecs.mapper(new CBORFactory());
+        Assert.assertEquals("12.05", mapper.readValue(mapper.writeValueAsBytes(new Money(1205)), String.class));
+    }
+}
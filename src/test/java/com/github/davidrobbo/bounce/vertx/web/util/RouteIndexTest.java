@@ -0,0 +1,93 @@
+package com.github.davidrobbo.bounce.vertx.web.util;
+
+import com.github.davidrobbo.bounce.index.IndexedController;
+import com.github.davidrobbo.bounce.processor.BounceIndexProcessor;
+import com.google.inject.Guice;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.LoaderClassPath;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toSet;
+
+public class RouteIndexTest {
+
+    private static final String PACKAGE = "com.github.davidrobbo.bounce.index";
+    private static final String UNINDEXED = PACKAGE + ".UnindexedController";
+    private static final String UNLISTED = PACKAGE + ".UnlistedController";
+
+    @Test
+    public void testIndexedRootsAreNotScanned() {
+        Assert.assertTrue(RouteIndex.load(getClass().getClassLoader()).contains(IndexedController.class.getName()));
+        Assert.assertEquals(Collections.emptyList(), RouteIndex.unindexed(getClass().getClassLoader(), PACKAGE));
+    }
+
+    /**
+     * A directory compiled without the index processor holding a controller in an indexed package
+     */
+    @Test
+    public void testUnindexedRootsAreScanned() throws Exception {
+        final Path root = Files.createTempDirectory("bounce-unindexed");
+        final ClassPool pool = new ClassPool();
+        pool.appendClassPath(new LoaderClassPath(getClass().getClassLoader()));
+        final CtClass unindexed = pool.get(IndexedController.class.getName());
+        unindexed.setName(UNINDEXED);
+        unindexed.writeFile(root.toString());
+
+        final ClassLoader previous = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{root.toUri().toURL()}, getClass().getClassLoader())) {
+            Assert.assertEquals(Collections.singletonList(root.toUri().toURL()), RouteIndex.unindexed(loader, PACKAGE));
+            Thread.currentThread().setContextClassLoader(loader);
+            final Set<String> components = Bounce.compile(new String[]{PACKAGE}, Guice.createInjector())
+                    .getComponents()
+                    .stream()
+                    .map(Class::getName)
+                    .collect(toSet());
+            Assert.assertEquals(new HashSet<>(Arrays.asList(IndexedController.class.getName(), UNINDEXED)), components);
+        } finally {
+            Thread.currentThread().setContextClassLoader(previous);
+        }
+    }
+
+    /**
+     * A directory whose index lost a controller, as a fat jar keeping a single jar's index does
+     */
+    @Test
+    public void testUnlistedComponentsAreMapped() throws Exception {
+        final Path root = Files.createTempDirectory("bounce-unlisted");
+        final ClassPool pool = new ClassPool();
+        pool.appendClassPath(new LoaderClassPath(getClass().getClassLoader()));
+        final CtClass unlisted = pool.get(IndexedController.class.getName());
+        unlisted.setName(UNLISTED);
+        unlisted.writeFile(root.toString());
+        final Path index = root.resolve(BounceIndexProcessor.INDEX);
+        Files.createDirectories(index.getParent());
+        Files.write(index, Collections.singletonList(IndexedController.class.getName()));
+
+        final ClassLoader previous = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{root.toUri().toURL()}, getClass().getClassLoader())) {
+            Assert.assertEquals(Collections.emptyList(), RouteIndex.unindexed(loader, PACKAGE));
+            Assert.assertEquals(Collections.singleton(UNLISTED),
+                    RouteIndex.unlisted(loader, PACKAGE, RouteIndex.load(loader)));
+            Thread.currentThread().setContextClassLoader(loader);
+            final Set<String> components = Bounce.compile(new String[]{PACKAGE}, Guice.createInjector())
+                    .getComponents()
+                    .stream()
+                    .map(Class::getName)
+                    .collect(toSet());
+            Assert.assertEquals(new HashSet<>(Arrays.asList(IndexedController.class.getName(), UNLISTED)), components);
+        } finally {
+            Thread.currentThread().setContextClassLoader(previous);
+        }
+    }
+}